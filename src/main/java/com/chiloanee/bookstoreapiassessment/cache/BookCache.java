@@ -0,0 +1,188 @@
+package com.chiloanee.bookstoreapiassessment.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.chiloanee.bookstoreapiassessment.dto.BookResponseDto;
+import com.chiloanee.bookstoreapiassessment.event.BookChangedEvent;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+
+/**
+ * Read-through cache of {@link BookResponseDto}s by book id.
+ * <p>
+ * Entries are dropped as soon as a change is flushed and again once it
+ * commits. A load that races with either invalidation is detected through a
+ * per-stripe generation counter and discarded, so a reader can never
+ * re-populate the cache with the row it read before the write. Cached DTOs
+ * are shared and must be treated as read-only.
+ * <p>
+ * Changes made on other nodes arrive through {@link #invalidate(Long, Long)}
+ * with the version they wrote. Until that version is evicted from a second,
+ * equally sized cache, older rows (from a lagging replica, say) are returned
+ * to the caller but not cached.
+ */
+@Component
+public class BookCache implements MeterBinder {
+
+    private static final int STRIPES = 64;
+
+    private final boolean enabled;
+    private final SegmentedLruCache<Long, BookResponseDto> cache;
+    private final SegmentedLruCache<Long, Long> minimumVersions;
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+    public BookCache(@Value("${bookstore.cache.books.enabled:true}") boolean enabled,
+                     @Value("${bookstore.cache.books.maximum-size:10000}") int maximumSize) {
+        this.enabled = enabled;
+        this.cache = new SegmentedLruCache<>(maximumSize, 16);
+        this.minimumVersions = new SegmentedLruCache<>(maximumSize, 16);
+    }
+
+    public BookResponseDto get(Long id, Function<Long, BookResponseDto> loader) {
+        if (!enabled) {
+            return loader.apply(id);
+        }
+        BookResponseDto cached = cache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+
+        long generation = generations.get(stripe(id));
+        BookResponseDto loaded = loader.apply(id);
+        put(id, loaded, generation);
+        return loaded;
+    }
+
+    /**
+     * Returns the books found for {@code ids}, loading all misses with one call
+     * to {@code loader}; ids the loader does not return are absent from the
+     * result and are not cached. Loads are guarded like {@link #get}.
+     */
+    public Map<Long, BookResponseDto> getAll(Collection<Long> ids,
+                                             Function<List<Long>, Map<Long, BookResponseDto>> loader) {
+        if (!enabled) {
+            return loader.apply(List.copyOf(ids));
+        }
+        Map<Long, BookResponseDto> books = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long id : ids) {
+            BookResponseDto cached = cache.get(id);
+            if (cached != null) {
+                books.put(id, cached);
+            } else {
+                misses.add(id);
+            }
+        }
+        if (misses.isEmpty()) {
+            return books;
+        }
+
+        long[] missGenerations = new long[misses.size()];
+        for (int i = 0; i < missGenerations.length; i++) {
+            missGenerations[i] = generations.get(stripe(misses.get(i)));
+        }
+        Map<Long, BookResponseDto> loaded = loader.apply(misses);
+        for (int i = 0; i < missGenerations.length; i++) {
+            Long id = misses.get(i);
+            BookResponseDto book = loaded.get(id);
+            if (book != null) {
+                put(id, book, missGenerations[i]);
+                books.put(id, book);
+            }
+        }
+        return books;
+    }
+
+    /**
+     * Returns the cached book without loading it on a miss.
+     */
+    public BookResponseDto getIfPresent(Long id) {
+        return enabled ? cache.get(id) : null;
+    }
+
+    public void invalidate(Long id) {
+        generations.incrementAndGet(stripe(id));
+        cache.invalidate(id);
+    }
+
+    /**
+     * Drops the book and stops caching versions older than {@code version};
+     * {@code null} only drops it. For a change made on another node, which
+     * may arrive out of order.
+     */
+    public void invalidate(Long id, Long version) {
+        if (enabled && version != null) {
+            synchronized (minimumVersions) {
+                Long current = minimumVersions.get(id);
+                if (current == null || current < version) {
+                    minimumVersions.put(id, version);
+                }
+            }
+        }
+        invalidate(id);
+    }
+
+    private void put(Long id, BookResponseDto book, long generation) {
+        Long minimumVersion = minimumVersions.get(id);
+        if (minimumVersion != null && (book.getVersion() == null || book.getVersion() < minimumVersion)) {
+            return;
+        }
+        cache.put(id, book);
+        if (generations.get(stripe(id)) != generation) {
+            cache.invalidate(id);
+        }
+    }
+
+    @EventListener
+    public void onBookChanging(BookChangedEvent event) {
+        if (event.id() != null && event.type() != BookChangedEvent.Type.CREATED) {
+            invalidate(event.id());
+        }
+    }
+
+    @TransactionalEventListener
+    public void onBookChanged(BookChangedEvent event) {
+        onBookChanging(event);
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("bookstore.cache.books.requests", cache, SegmentedLruCache::hitCount)
+                .tag("result", "hit")
+                .description("Book cache lookups")
+                .register(registry);
+        FunctionCounter.builder("bookstore.cache.books.requests", cache, SegmentedLruCache::missCount)
+                .tag("result", "miss")
+                .description("Book cache lookups")
+                .register(registry);
+        FunctionCounter.builder("bookstore.cache.books.evictions", cache, SegmentedLruCache::evictionCount)
+                .description("Book cache entries evicted by the SLRU policy")
+                .register(registry);
+        Gauge.builder("bookstore.cache.books.size", cache, SegmentedLruCache::size)
+                .description("Book cache entries")
+                .register(registry);
+    }
+
+    private static int stripe(Long id) {
+        return (int) (id & (STRIPES - 1));
+    }
+}
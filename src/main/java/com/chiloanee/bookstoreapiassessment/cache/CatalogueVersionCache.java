@@ -0,0 +1,58 @@
+package com.chiloanee.bookstoreapiassessment.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.chiloanee.bookstoreapiassessment.event.BookChangedEvent;
+import com.chiloanee.bookstoreapiassessment.repository.CatalogueVersion;
+
+
+/**
+ * Holds the last computed {@link CatalogueVersion} so list and search ETags do
+ * not scan the table on every request.
+ * <p>
+ * Any book change drops the value when it is flushed and again when it
+ * commits; a computation that overlaps either is not stored, in the same way
+ * {@link BookCache} discards racing loads.
+ */
+@Component
+public class CatalogueVersionCache {
+
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Entry current;
+
+    public CatalogueVersion get(Supplier<CatalogueVersion> loader) {
+        Entry entry = current;
+        long observed = generation.get();
+        if (entry != null && entry.generation == observed) {
+            return entry.version;
+        }
+        CatalogueVersion loaded = loader.get();
+        if (generation.get() == observed) {
+            current = new Entry(observed, loaded);
+        }
+        return loaded;
+    }
+
+    /** Drops the value, for a change made on another node. */
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    @EventListener
+    public void onBookChanging(BookChangedEvent event) {
+        generation.incrementAndGet();
+    }
+
+    @TransactionalEventListener
+    public void onBookChanged(BookChangedEvent event) {
+        generation.incrementAndGet();
+    }
+
+    private record Entry(long generation, CatalogueVersion version) {
+    }
+}
@@ -0,0 +1,240 @@
+package com.chiloanee.bookstoreapiassessment.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import com.chiloanee.bookstoreapiassessment.dto.BookResponseDto;
+import com.chiloanee.bookstoreapiassessment.event.BookChangedEvent;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+
+/**
+ * Caches the book ids and total of search result pages, keyed by the
+ * lower-cased filters and the page window. The books themselves are read
+ * through {@link BookCache}, so a hit costs no query when they are cached.
+ * <p>
+ * A book change only drops the pages whose filters the book matches, before
+ * or after the change, or that list it; an update whose previous values are
+ * unknown drops every page. The changes of a transaction are collected and
+ * applied in one pass over the cache when it commits, and a transaction with
+ * more than {@value #MAX_PRECISE_CHANGES} changes, such as a bulk insert,
+ * clears the cache instead. Filters match literally, as in the repository's
+ * escaped {@code LIKE} queries. Loads that overlap any change are not stored,
+ * as in {@link BookCache}, and neither are loads inside a read-write
+ * transaction, which may see its uncommitted changes. Memory is bounded by
+ * the estimated size of the entries rather than by their number.
+ */
+@Component
+public class SearchResultCache implements MeterBinder {
+
+    private static final long ENTRY_OVERHEAD_BYTES = 96;
+    static final int MAX_PRECISE_CHANGES = 256;
+
+    private final boolean enabled;
+    private final SegmentedLruCache<SearchKey, SearchResult> cache;
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder invalidations = new LongAdder();
+
+    public SearchResultCache(@Value("${bookstore.cache.search.enabled:true}") boolean enabled,
+                             @Value("${bookstore.cache.search.maximum-weight:16MB}") DataSize maximumWeight) {
+        this.enabled = enabled;
+        this.cache = new SegmentedLruCache<>(maximumWeight.toBytes(), 16, SearchResult::weight);
+    }
+
+    /**
+     * Returns the page for trimmed, non-blank filters from the cached ids and
+     * {@code booksById}, or else from {@code loader}. Filters differing only
+     * in case share an entry, as searches ignore case. {@code booksById} may
+     * omit books deleted since; the page is then short.
+     */
+    public Page<BookResponseDto> get(String title, String author, Pageable pageable,
+                                     Supplier<Page<BookResponseDto>> loader,
+                                     Function<List<Long>, List<BookResponseDto>> booksById) {
+        if (!enabled || pageable.isUnpaged() || (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly())) {
+            return loader.get();
+        }
+        SearchKey key = new SearchKey(lowerCase(title), lowerCase(author), pageable.getOffset(), pageable.getPageSize(),
+                pageable.getSort());
+        SearchResult cached = cache.get(key);
+        if (cached != null) {
+            List<Long> ids = Arrays.stream(cached.ids()).boxed().toList();
+            return new PageImpl<>(booksById.apply(ids), pageable, cached.total());
+        }
+
+        long observed = generation.get();
+        Page<BookResponseDto> loaded = loader.get();
+        long[] ids = loaded.getContent().stream().mapToLong(BookResponseDto::getId).toArray();
+        cache.put(key, new SearchResult(ids, loaded.getTotalElements(), key.weight()));
+        if (generation.get() != observed) {
+            cache.invalidate(key);
+        }
+        return loaded;
+    }
+
+    /**
+     * Drops the pages {@code event} may affect when its transaction commits,
+     * or at once outside a transaction.
+     */
+    @EventListener
+    public void onBookChanging(BookChangedEvent event) {
+        generation.incrementAndGet();
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(List.of(event));
+            return;
+        }
+        pendingChanges().add(event);
+    }
+
+    /** Looked up among the synchronizations, which unlike resources are suspended with their transaction. */
+    private PendingChanges pendingChanges() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingChanges pending && pending.owner() == this) {
+                return pending;
+            }
+        }
+        PendingChanges pending = new PendingChanges();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private void invalidate(List<BookChangedEvent> events) {
+        if (events == null) {
+            invalidations.add(cache.size());
+            cache.invalidateAll();
+            return;
+        }
+        invalidations.add(cache.invalidateIf((key, result) -> {
+            for (BookChangedEvent event : events) {
+                if (affects(event, key, result)) {
+                    return true;
+                }
+            }
+            return false;
+        }));
+    }
+
+    private static boolean affects(BookChangedEvent event, SearchKey key, SearchResult result) {
+        if (key.matches(event.title(), event.author())) {
+            return true;
+        }
+        if (event.type() == BookChangedEvent.Type.UPDATED) {
+            if (event.previousTitle() == null && event.previousAuthor() == null) {
+                return true;
+            }
+            if (key.matches(event.previousTitle(), event.previousAuthor())) {
+                return true;
+            }
+        }
+        return event.id() != null && result.contains(event.id());
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    private static String lowerCase(String filter) {
+        return filter == null ? null : filter.toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("bookstore.cache.search.requests", cache, SegmentedLruCache::hitCount)
+                .tag("result", "hit")
+                .description("Search result cache lookups")
+                .register(registry);
+        FunctionCounter.builder("bookstore.cache.search.requests", cache, SegmentedLruCache::missCount)
+                .tag("result", "miss")
+                .description("Search result cache lookups")
+                .register(registry);
+        FunctionCounter.builder("bookstore.cache.search.invalidations", invalidations, LongAdder::sum)
+                .description("Search result pages dropped because a changed book could match them")
+                .register(registry);
+        Gauge.builder("bookstore.cache.search.weight", cache, SegmentedLruCache::weight)
+                .description("Estimated bytes held by the search result cache")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /** The changes of one transaction, or null once there are too many to match one by one. */
+    private final class PendingChanges implements TransactionSynchronization {
+
+        private List<BookChangedEvent> events = new ArrayList<>();
+
+        void add(BookChangedEvent event) {
+            if (events != null && events.size() < MAX_PRECISE_CHANGES) {
+                events.add(event);
+            } else {
+                events = null;
+            }
+        }
+
+        SearchResultCache owner() {
+            return SearchResultCache.this;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            // a load that read the old rows may have finished since the change
+            generation.incrementAndGet();
+            if (status == STATUS_COMMITTED) {
+                invalidate(events);
+            }
+        }
+    }
+
+    private record SearchKey(String title, String author, long offset, int pageSize, Sort sort) {
+
+        boolean matches(String bookTitle, String bookAuthor) {
+            return contains(bookTitle, title) && contains(bookAuthor, author);
+        }
+
+        long weight() {
+            return 2L * ((title == null ? 0 : title.length()) + (author == null ? 0 : author.length()));
+        }
+
+        private static boolean contains(String value, String filter) {
+            return filter == null || (value != null && value.toLowerCase(Locale.ROOT).contains(filter));
+        }
+    }
+
+    private record SearchResult(long[] ids, long total, long keyWeight) {
+
+        boolean contains(long id) {
+            for (long cached : ids) {
+                if (cached == id) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        long weight() {
+            return ENTRY_OVERHEAD_BYTES + keyWeight + 8L * ids.length;
+        }
+    }
+}
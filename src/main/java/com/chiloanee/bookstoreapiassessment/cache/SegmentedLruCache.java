@@ -0,0 +1,246 @@
+package com.chiloanee.bookstoreapiassessment.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.ToLongFunction;
+
+
+/**
+ * Bounded segmented-LRU cache.
+ * <p>
+ * New entries land in a small probation segment; a second hit promotes them
+ * to the protected segment, and protected entries that age out are demoted
+ * back to probation rather than dropped. One-off reads therefore cannot flush
+ * the hot set. The key space is split across independently locked shards to
+ * keep lock hold times short under concurrent reads.
+ * <p>
+ * Capacity is a number of entries, or a total weight when a weigher is
+ * given; an entry heavier than a shard's probation segment is not kept.
+ */
+public class SegmentedLruCache<K, V> {
+
+    private static final double PROTECTED_RATIO = 0.8;
+
+    private final Shard<K, V>[] shards;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public SegmentedLruCache(int maximumSize, int shardCount) {
+        this(maximumSize, shardCount, value -> 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    public SegmentedLruCache(long maximumWeight, int shardCount, ToLongFunction<? super V> weigher) {
+        if (maximumWeight < shardCount) {
+            shardCount = 1;
+        }
+        this.shards = new Shard[shardCount];
+        long perShard = Math.max(1, maximumWeight / shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard<>(perShard, weigher, evictions);
+        }
+    }
+
+    public V get(K key) {
+        V value = shardFor(key).get(key);
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    public void put(K key, V value) {
+        shardFor(key).put(key, value);
+    }
+
+    public void invalidate(K key) {
+        shardFor(key).remove(key);
+    }
+
+    public void invalidateAll() {
+        for (Shard<K, V> shard : shards) {
+            shard.clear();
+        }
+    }
+
+    /**
+     * Removes every entry matching {@code predicate}, which runs under the
+     * shard locks and must be cheap; returns how many were removed.
+     */
+    public int invalidateIf(BiPredicate<? super K, ? super V> predicate) {
+        int removed = 0;
+        for (Shard<K, V> shard : shards) {
+            removed += shard.removeIf(predicate);
+        }
+        return removed;
+    }
+
+    public long size() {
+        long size = 0;
+        for (Shard<K, V> shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    public long weight() {
+        long weight = 0;
+        for (Shard<K, V> shard : shards) {
+            weight += shard.weight();
+        }
+        return weight;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private Shard<K, V> shardFor(K key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return shards[Math.floorMod(hash, shards.length)];
+    }
+
+    private static final class Shard<K, V> {
+
+        private final long protectedCapacity;
+        private final long probationCapacity;
+        private final ToLongFunction<? super V> weigher;
+        private final LongAdder evictions;
+        private final LinkedHashMap<K, V> probation = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<K, V> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+        private long probationWeight;
+        private long protectedWeight;
+
+        Shard(long capacity, ToLongFunction<? super V> weigher, LongAdder evictions) {
+            this.weigher = weigher;
+            this.evictions = evictions;
+            this.protectedCapacity = Math.max(1, (long) (capacity * PROTECTED_RATIO));
+            this.probationCapacity = Math.max(1, capacity - protectedCapacity);
+        }
+
+        synchronized V get(K key) {
+            V value = protectedSegment.get(key);
+            if (value != null) {
+                return value;
+            }
+            value = probation.remove(key);
+            if (value != null) {
+                probationWeight -= weigher.applyAsLong(value);
+                promote(key, value);
+            }
+            return value;
+        }
+
+        synchronized void put(K key, V value) {
+            long weight = weigher.applyAsLong(value);
+            if (weight > probationCapacity) {
+                remove(key);
+                evictions.increment();
+                return;
+            }
+            if (protectedSegment.containsKey(key)) {
+                protectedWeight += weight - weigher.applyAsLong(protectedSegment.put(key, value));
+                trimProtected();
+                return;
+            }
+            V replaced = probation.put(key, value);
+            probationWeight += weight - (replaced == null ? 0 : weigher.applyAsLong(replaced));
+            trimProbation();
+        }
+
+        synchronized void remove(K key) {
+            V removed = protectedSegment.remove(key);
+            if (removed != null) {
+                protectedWeight -= weigher.applyAsLong(removed);
+                return;
+            }
+            removed = probation.remove(key);
+            if (removed != null) {
+                probationWeight -= weigher.applyAsLong(removed);
+            }
+        }
+
+        synchronized int removeIf(BiPredicate<? super K, ? super V> predicate) {
+            int removed = 0;
+            for (Iterator<Map.Entry<K, V>> entries = protectedSegment.entrySet().iterator(); entries.hasNext(); ) {
+                Map.Entry<K, V> entry = entries.next();
+                if (predicate.test(entry.getKey(), entry.getValue())) {
+                    entries.remove();
+                    protectedWeight -= weigher.applyAsLong(entry.getValue());
+                    removed++;
+                }
+            }
+            for (Iterator<Map.Entry<K, V>> entries = probation.entrySet().iterator(); entries.hasNext(); ) {
+                Map.Entry<K, V> entry = entries.next();
+                if (predicate.test(entry.getKey(), entry.getValue())) {
+                    entries.remove();
+                    probationWeight -= weigher.applyAsLong(entry.getValue());
+                    removed++;
+                }
+            }
+            return removed;
+        }
+
+        synchronized void clear() {
+            probation.clear();
+            protectedSegment.clear();
+            probationWeight = 0;
+            protectedWeight = 0;
+        }
+
+        synchronized int size() {
+            return probation.size() + protectedSegment.size();
+        }
+
+        synchronized long weight() {
+            return probationWeight + protectedWeight;
+        }
+
+        private void promote(K key, V value) {
+            protectedSegment.put(key, value);
+            protectedWeight += weigher.applyAsLong(value);
+            trimProtected();
+        }
+
+        private void trimProtected() {
+            boolean demoted = false;
+            while (protectedWeight > protectedCapacity && !protectedSegment.isEmpty()) {
+                Iterator<Map.Entry<K, V>> eldest = protectedSegment.entrySet().iterator();
+                Map.Entry<K, V> entry = eldest.next();
+                eldest.remove();
+                long weight = weigher.applyAsLong(entry.getValue());
+                protectedWeight -= weight;
+                probation.put(entry.getKey(), entry.getValue());
+                probationWeight += weight;
+                demoted = true;
+            }
+            if (demoted) {
+                trimProbation();
+            }
+        }
+
+        private void trimProbation() {
+            while (probationWeight > probationCapacity && !probation.isEmpty()) {
+                Iterator<V> eldest = probation.values().iterator();
+                probationWeight -= weigher.applyAsLong(eldest.next());
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+}
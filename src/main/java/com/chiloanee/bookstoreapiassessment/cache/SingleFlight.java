@@ -0,0 +1,81 @@
+package com.chiloanee.bookstoreapiassessment.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the
+ * loader, and callers that arrive while it is running wait for its result
+ * instead of running their own. Nothing is kept once the load completes, so
+ * this deduplicates work in flight; it does not cache.
+ * <p>
+ * A failed load is rethrown to every caller that shared it.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+    private final LongAdder led = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+
+    public V execute(K key, Function<? super K, ? extends V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = flights.putIfAbsent(key, flight);
+        if (inFlight != null) {
+            shared.increment();
+            return await(inFlight);
+        }
+
+        led.increment();
+        try {
+            V value = loader.apply(key);
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    /**
+     * Lets later callers start a new load of {@code key} instead of joining
+     * the one in flight, which may have read data that is now stale.
+     */
+    public void forget(K key) {
+        flights.remove(key);
+    }
+
+    public void forgetAll() {
+        flights.clear();
+    }
+
+    /** Loads run by their first caller. */
+    public long ledCount() {
+        return led.sum();
+    }
+
+    /** Calls answered by joining another caller's load. */
+    public long sharedCount() {
+        return shared.sum();
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
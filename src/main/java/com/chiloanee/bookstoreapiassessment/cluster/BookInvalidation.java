@@ -0,0 +1,12 @@
+package com.chiloanee.bookstoreapiassessment.cluster;
+
+import com.chiloanee.bookstoreapiassessment.event.BookChangedEvent;
+
+
+/**
+ * A committed book change, sent to every node so they can drop or update what
+ * they hold for the book. {@code origin} is the node that made the change, or
+ * {@code null} when the transport does not know it.
+ */
+public record BookInvalidation(String origin, BookChangedEvent change) {
+}
@@ -0,0 +1,114 @@
+package com.chiloanee.bookstoreapiassessment.cluster;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.chiloanee.bookstoreapiassessment.cache.BookCache;
+import com.chiloanee.bookstoreapiassessment.cache.CatalogueVersionCache;
+import com.chiloanee.bookstoreapiassessment.cache.SearchResultCache;
+import com.chiloanee.bookstoreapiassessment.event.BookChangedEvent;
+import com.chiloanee.bookstoreapiassessment.search.BookSearchIndex;
+import com.chiloanee.bookstoreapiassessment.service.impl.BookReadCoalescer;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Keeps the per-node book state ({@link BookCache}, cached search results,
+ * the search index, the catalogue version and in-flight reads) coherent
+ * across nodes.
+ * <p>
+ * Each committed change is published on the {@link InvalidationTransport},
+ * and changes received from other nodes are applied as if made locally. As
+ * they can arrive out of order, and after a lagging replica served the old
+ * row, the book cache refuses versions older than the change and the search
+ * index ignores changes older than what it holds. A change the transport
+ * never delivers leaves the other nodes stale until the book changes again.
+ */
+@Component
+@Slf4j
+public class ClusterInvalidationBus implements MeterBinder {
+
+    private final InvalidationTransport transport;
+    private final BookCache bookCache;
+    private final CatalogueVersionCache catalogueVersionCache;
+    private final SearchResultCache searchResultCache;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookReadCoalescer bookReadCoalescer;
+    private final String nodeId;
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder received = new LongAdder();
+
+    public ClusterInvalidationBus(InvalidationTransport transport,
+                                  BookCache bookCache,
+                                  CatalogueVersionCache catalogueVersionCache,
+                                  SearchResultCache searchResultCache,
+                                  BookSearchIndex bookSearchIndex,
+                                  BookReadCoalescer bookReadCoalescer,
+                                  @Value("${bookstore.cluster.node-id:}") String nodeId) {
+        this.transport = transport;
+        this.bookCache = bookCache;
+        this.catalogueVersionCache = catalogueVersionCache;
+        this.searchResultCache = searchResultCache;
+        this.bookSearchIndex = bookSearchIndex;
+        this.bookReadCoalescer = bookReadCoalescer;
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+    }
+
+    @PostConstruct
+    public void start() {
+        transport.subscribe(this::receive);
+    }
+
+    @TransactionalEventListener
+    public void onBookChanged(BookChangedEvent event) {
+        if (event.id() == null) {
+            return;
+        }
+        try {
+            transport.publish(new BookInvalidation(nodeId, event));
+            sent.increment();
+        } catch (RuntimeException e) {
+            log.warn("Could not publish the change to book {} to other nodes: {}", event.id(), e.getMessage());
+        }
+    }
+
+    void receive(BookInvalidation invalidation) {
+        BookChangedEvent change = invalidation.change();
+        if (nodeId.equals(invalidation.origin()) || change.id() == null) {
+            return;
+        }
+        received.increment();
+        bookReadCoalescer.onBookChanging(change);
+        // a deleted book never comes back, so no version of it may be cached
+        bookCache.invalidate(change.id(),
+                change.type() == BookChangedEvent.Type.DELETED ? Long.valueOf(Long.MAX_VALUE) : change.version());
+        catalogueVersionCache.invalidate();
+        searchResultCache.onBookChanging(change);
+        bookSearchIndex.onBookChanged(change);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("bookstore.cluster.invalidations", sent, LongAdder::sum)
+                .tag("direction", "sent")
+                .description("Book changes published to, or applied from, other nodes")
+                .register(registry);
+        FunctionCounter.builder("bookstore.cluster.invalidations", received, LongAdder::sum)
+                .tag("direction", "received")
+                .description("Book changes published to, or applied from, other nodes")
+                .register(registry);
+    }
+}
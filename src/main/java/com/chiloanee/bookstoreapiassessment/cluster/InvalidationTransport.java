@@ -0,0 +1,20 @@
+package com.chiloanee.bookstoreapiassessment.cluster;
+
+import java.util.function.Consumer;
+
+
+/**
+ * Carries {@link BookInvalidation}s between the nodes of a deployment.
+ * <p>
+ * A transport may deliver an invalidation late, more than once or out of
+ * order, and may deliver a node's own invalidations back to it; receivers
+ * rely on book versions rather than on arrival order.
+ */
+public interface InvalidationTransport {
+
+    /** Sends {@code invalidation} to every node; must not block on slow receivers. */
+    void publish(BookInvalidation invalidation);
+
+    /** Registers the receiver of this node; called once, at startup. */
+    void subscribe(Consumer<BookInvalidation> receiver);
+}
@@ -0,0 +1,33 @@
+package com.chiloanee.bookstoreapiassessment.cluster;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * Delivers invalidations synchronously to the receivers subscribed to this
+ * instance. With one node this is a no-op round trip; tests share one
+ * instance between several nodes to stand in for a network.
+ */
+@Component
+@ConditionalOnProperty(name = "bookstore.cluster.transport", havingValue = "loopback", matchIfMissing = true)
+public class LoopbackInvalidationTransport implements InvalidationTransport {
+
+    private final List<Consumer<BookInvalidation>> receivers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(BookInvalidation invalidation) {
+        for (Consumer<BookInvalidation> receiver : receivers) {
+            receiver.accept(invalidation);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<BookInvalidation> receiver) {
+        receivers.add(receiver);
+    }
+}
@@ -0,0 +1,50 @@
+package com.chiloanee.bookstoreapiassessment.cluster;
+
+import java.util.function.Consumer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.chiloanee.bookstoreapiassessment.dto.BookChangeDto;
+import com.chiloanee.bookstoreapiassessment.event.BookChangedEvent;
+import com.chiloanee.bookstoreapiassessment.outbox.BookChangeRelay;
+
+import lombok.RequiredArgsConstructor;
+
+
+/**
+ * Uses the {@code book_changes} outbox, which every node shares through the
+ * database, as the invalidation channel: each node's {@link BookChangeRelay}
+ * reads the committed changes, mostly in order, within about one poll
+ * interval. Nothing is sent, as the writing transaction already recorded the
+ * change, with what it replaced and the node that made it; that node skips
+ * its own changes as with any transport.
+ * <p>
+ * A change that commits more than {@code gap-timeout} after its id was
+ * assigned arrives late, and one that commits after
+ * {@code late-commit-window} is never relayed. The other nodes then keep
+ * serving the old book until it changes again, as the caches do not expire.
+ */
+@Component
+@ConditionalOnProperty(name = "bookstore.cluster.transport", havingValue = "outbox")
+@RequiredArgsConstructor
+public class OutboxInvalidationTransport implements InvalidationTransport {
+
+    private final BookChangeRelay bookChangeRelay;
+
+    @Override
+    public void publish(BookInvalidation invalidation) {
+        // already in the outbox
+    }
+
+    @Override
+    public void subscribe(Consumer<BookInvalidation> receiver) {
+        bookChangeRelay.listen(changes -> {
+            for (BookChangeDto change : changes) {
+                receiver.accept(new BookInvalidation(change.getOrigin(), new BookChangedEvent(change.getType(),
+                        change.getBookId(), change.getTitle(), change.getAuthor(), change.getIsbn(),
+                        change.getVersion(), change.getPreviousTitle(), change.getPreviousAuthor())));
+            }
+        });
+    }
+}
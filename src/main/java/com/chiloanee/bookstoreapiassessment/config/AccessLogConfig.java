@@ -0,0 +1,55 @@
+package com.chiloanee.bookstoreapiassessment.config;
+
+import java.time.Duration;
+
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.chiloanee.bookstoreapiassessment.logging.AccessLogFilter;
+import com.chiloanee.bookstoreapiassessment.logging.RingBufferAppender;
+
+import ch.qos.logback.classic.Logger;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+
+/**
+ * Per-request access log, enabled unless
+ * {@code bookstore.access-log.enabled=false}. Runs just inside the JDBC
+ * metrics filter so each event can carry the request's statement count.
+ */
+@Configuration
+@ConditionalOnProperty(name = "bookstore.access-log.enabled", havingValue = "true", matchIfMissing = true)
+public class AccessLogConfig {
+
+    @Bean
+    public FilterRegistrationBean<AccessLogFilter> accessLogFilter(
+            @Value("${bookstore.access-log.sample-rate:1.0}") double sampleRate,
+            @Value("${bookstore.access-log.slow-threshold:500ms}") Duration slowThreshold) {
+        FilterRegistrationBean<AccessLogFilter> registration =
+                new FilterRegistrationBean<>(new AccessLogFilter(sampleRate, slowThreshold));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+
+    @Bean
+    public MeterBinder accessLogMetrics() {
+        return registry -> {
+            if (LoggerFactory.getLogger(AccessLogFilter.LOGGER_NAME) instanceof Logger logger) {
+                logger.iteratorForAppenders().forEachRemaining(appender -> {
+                    if (appender instanceof RingBufferAppender ringBuffer) {
+                        FunctionCounter.builder("bookstore.access_log.dropped", ringBuffer, RingBufferAppender::getDroppedCount)
+                                .description("Access log events dropped because the ring buffer was full")
+                                .tag("appender", ringBuffer.getName())
+                                .register(registry);
+                    }
+                });
+            }
+        };
+    }
+}
@@ -0,0 +1,65 @@
+package com.chiloanee.bookstoreapiassessment.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.chiloanee.bookstoreapiassessment.datasource.ConcurrencyLimitedDataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Moves the database concurrency bound from the request thread pool to the
+ * datasource. Enabled with {@code bookstore.datasource.limiter.enabled=true},
+ * which the {@code virtual-threads} profile sets alongside
+ * {@code spring.threads.virtual.enabled}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "bookstore.datasource.limiter.enabled", havingValue = "true")
+@Slf4j
+public class DataSourceConcurrencyConfig {
+
+    @Bean
+    public static BeanPostProcessor concurrencyLimitedDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConcurrencyLimitedDataSource) {
+                    return bean;
+                }
+                int maxConcurrency = environment.getProperty("bookstore.datasource.limiter.max-concurrency", Integer.class,
+                        environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+                long acquireTimeout = environment.getProperty("bookstore.datasource.limiter.acquire-timeout", Long.class,
+                        environment.getProperty("spring.datasource.hikari.connection-timeout", Long.class, 30_000L));
+                log.info("Limiting datasource '{}' to {} concurrent connections ({} ms acquire timeout)",
+                        beanName, maxConcurrency, acquireTimeout);
+                return new ConcurrencyLimitedDataSource(dataSource, maxConcurrency, acquireTimeout);
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder dataSourceLimiterMetrics(ObjectProvider<DataSource> dataSources) {
+        return registry -> dataSources.orderedStream()
+                .filter(ConcurrencyLimitedDataSource.class::isInstance)
+                .map(ConcurrencyLimitedDataSource.class::cast)
+                .forEach(dataSource -> {
+                    Gauge.builder("bookstore.datasource.limiter.active", dataSource,
+                                    ConcurrencyLimitedDataSource::getActiveConnections)
+                            .description("Connections currently held under the datasource limiter")
+                            .register(registry);
+                    Gauge.builder("bookstore.datasource.limiter.waiting", dataSource,
+                                    ConcurrencyLimitedDataSource::getWaitingCallers)
+                            .description("Callers queued for a datasource permit")
+                            .register(registry);
+                });
+    }
+}
@@ -1,5 +1,6 @@
 package com.chiloanee.bookstoreapiassessment.config;
 
+import java.sql.Connection;
 import java.sql.SQLException;
 
 import javax.sql.DataSource;
@@ -17,9 +18,9 @@ public class JpaConfig {
 
     @EventListener(ApplicationReadyEvent.class)
     public void logDatabaseInfo(ApplicationReadyEvent event) {
-        try {
-            DataSource dataSource = event.getApplicationContext().getBean(DataSource.class);
-            String url = dataSource.getConnection().getMetaData().getURL();
+        DataSource dataSource = event.getApplicationContext().getBean(DataSource.class);
+        try (Connection connection = dataSource.getConnection()) {
+            String url = connection.getMetaData().getURL();
             if (url.contains("h2")) {
                 log.info(" Application successfully started with H2 in-memory database");
             } else if (url.contains("mysql")) {
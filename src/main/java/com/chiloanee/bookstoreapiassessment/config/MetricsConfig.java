@@ -0,0 +1,98 @@
+package com.chiloanee.bookstoreapiassessment.config;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.chiloanee.bookstoreapiassessment.datasource.StatementMetricsDataSource;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+
+/**
+ * Instrumentation beyond what Spring Boot records on its own: per-method
+ * {@code BookService} timers (through {@code @Timed}) and the number of
+ * statements and JDBC time each request spends on the database.
+ * <p>
+ * Meters are scraped from {@code /actuator/prometheus}; a request only
+ * updates lock-free histogram buckets, never formats or publishes anything.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public static BeanPostProcessor statementMetricsDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof StatementMetricsDataSource) {
+                    return bean;
+                }
+                return new StatementMetricsDataSource(dataSource);
+            }
+        };
+    }
+
+    /**
+     * Records the statements run on the request thread. Work handed to
+     * another thread, such as a streamed export, is not attributed to the
+     * request.
+     */
+    @Bean
+    public FilterRegistrationBean<OncePerRequestFilter> jdbcRequestMetricsFilter(MeterRegistry registry) {
+        OncePerRequestFilter filter = new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                    throws ServletException, IOException {
+                try (StatementMetricsDataSource.Recording recording = StatementMetricsDataSource.record()) {
+                    chain.doFilter(request, response);
+                    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                    String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+                    DistributionSummary.builder("bookstore.jdbc.request.statements")
+                            .description("JDBC statements executed per HTTP request")
+                            .tag("method", request.getMethod())
+                            .tag("uri", uri)
+                            .publishPercentileHistogram()
+                            .minimumExpectedValue(1.0)
+                            .maximumExpectedValue(1_000.0)
+                            .register(registry)
+                            .record(recording.getStatements());
+                    Timer.builder("bookstore.jdbc.request.time")
+                            .description("Time spent executing JDBC statements per HTTP request")
+                            .tag("method", request.getMethod())
+                            .tag("uri", uri)
+                            .publishPercentileHistogram()
+                            .minimumExpectedValue(Duration.ofNanos(100_000))
+                            .maximumExpectedValue(Duration.ofSeconds(30))
+                            .register(registry)
+                            .record(recording.getNanos(), TimeUnit.NANOSECONDS);
+                }
+            }
+        };
+        FilterRegistrationBean<OncePerRequestFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
@@ -0,0 +1,132 @@
+package com.chiloanee.bookstoreapiassessment.config;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.chiloanee.bookstoreapiassessment.datasource.ReadReplicaDataSource;
+import com.chiloanee.bookstoreapiassessment.event.BookChangedEvent;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Sends read-only transactions to read replicas, enabled by listing them in
+ * {@code bookstore.datasource.replicas.urls}.
+ * <p>
+ * The application datasource becomes a {@link LazyConnectionDataSourceProxy}
+ * over the primary pool. It only fetches a physical connection at the first
+ * statement, by which time the transaction has marked the connection
+ * read-only, and then takes it from the {@link ReadReplicaDataSource}. Each
+ * replica gets its own Hikari pool configured from
+ * {@code spring.datasource.hikari.*} and reported as {@code hikaricp.*}
+ * with its pool name.
+ */
+@Configuration
+@ConditionalOnProperty(name = "bookstore.datasource.replicas.urls")
+@Slf4j
+public class ReadReplicaConfig {
+
+    private HikariDataSource primary;
+    private ReadReplicaDataSource readReplicaDataSource;
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties, Environment environment,
+                                 ObjectProvider<MeterRegistry> meterRegistry,
+                                 @Value("${bookstore.datasource.replicas.urls}") List<String> urls,
+                                 @Value("${bookstore.datasource.replicas.username:${spring.datasource.username:}}") String username,
+                                 @Value("${bookstore.datasource.replicas.password:${spring.datasource.password:}}") String password,
+                                 @Value("${bookstore.datasource.replicas.max-lag:5s}") Duration maxLag,
+                                 @Value("${bookstore.datasource.replicas.lag-query:}") String lagQuery,
+                                 @Value("${bookstore.datasource.replicas.health-check-interval:5s}") Duration healthCheckInterval) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        configure(primary, environment, "primary");
+
+        List<ReadReplicaDataSource.Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            configure(replica, environment, "replica-" + (i + 1));
+            replica.setJdbcUrl(urls.get(i));
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setReadOnly(true);
+            meterRegistry.ifAvailable(registry -> replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            replicas.add(new ReadReplicaDataSource.Replica(replica.getPoolName(), replica));
+        }
+        readReplicaDataSource = new ReadReplicaDataSource(primary, replicas, maxLag, lagQuery);
+        readReplicaDataSource.startHealthChecks(healthCheckInterval);
+        log.info("Routing read-only transactions to {} replica(s), at most {} behind the primary", replicas.size(), maxLag);
+
+        this.primary = primary;
+        LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(primary);
+        routing.setReadOnlyDataSource(readReplicaDataSource);
+        return routing;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        readReplicaDataSource.recordWrite();
+    }
+
+    /** Takes the datasource so that the replicas exist before meters are bound. */
+    @Bean
+    public MeterBinder readReplicaMetrics(DataSource dataSource) {
+        return registry -> {
+            FunctionCounter.builder("bookstore.datasource.reads", readReplicaDataSource, ReadReplicaDataSource::getReplicaReads)
+                    .description("Read-only connections handed out, by route")
+                    .tag("route", "replica")
+                    .register(registry);
+            FunctionCounter.builder("bookstore.datasource.reads", readReplicaDataSource, ReadReplicaDataSource::getPrimaryReads)
+                    .description("Read-only connections handed out, by route")
+                    .tag("route", "primary")
+                    .register(registry);
+            for (ReadReplicaDataSource.Replica replica : readReplicaDataSource.getReplicas()) {
+                Gauge.builder("bookstore.datasource.replica.healthy", replica, r -> r.isHealthy() ? 1 : 0)
+                        .description("Whether the replica passed its last health check")
+                        .tag("pool", replica.getName())
+                        .register(registry);
+                Gauge.builder("bookstore.datasource.replica.lag", replica, ReadReplicaDataSource.Replica::getLagSeconds)
+                        .description("Last measured replication lag")
+                        .baseUnit("seconds")
+                        .tag("pool", replica.getName())
+                        .register(registry);
+            }
+        };
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        readReplicaDataSource.close();
+        primary.close();
+    }
+
+    private static void configure(HikariDataSource dataSource, Environment environment, String poolName) {
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        dataSource.setPoolName(poolName);
+    }
+}
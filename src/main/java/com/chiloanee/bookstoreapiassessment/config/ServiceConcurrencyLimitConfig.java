@@ -0,0 +1,100 @@
+package com.chiloanee.bookstoreapiassessment.config;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.chiloanee.bookstoreapiassessment.limiter.AdaptiveConcurrencyLimiter;
+import com.chiloanee.bookstoreapiassessment.limiter.AdmissionControlledDataSource;
+import com.chiloanee.bookstoreapiassessment.limiter.ServiceConcurrencyLimitAspect;
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Adaptive back-pressure in front of {@code BookService}, enabled unless
+ * {@code bookstore.service.limiter.enabled=false}. The limit starts at the
+ * pool size and moves between {@code min-limit} and {@code max-limit} with the
+ * observed database latency; rejected calls become {@code 503} with
+ * {@code Retry-After}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "bookstore.service.limiter.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class ServiceConcurrencyLimitConfig {
+
+    @Bean
+    public AdaptiveConcurrencyLimiter serviceConcurrencyLimiter(
+            @Value("${bookstore.service.limiter.initial-limit:${spring.datasource.hikari.maximum-pool-size:10}}") int initialLimit,
+            @Value("${bookstore.service.limiter.min-limit:2}") int minLimit,
+            @Value("${bookstore.service.limiter.max-limit:200}") int maxLimit,
+            @Value("${bookstore.service.limiter.tolerance:1.5}") double tolerance) {
+        log.info("Adaptive service concurrency limit starting at {} (between {} and {})", initialLimit, minLimit, maxLimit);
+        return new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, tolerance);
+    }
+
+    @Bean
+    public ServiceConcurrencyLimitAspect serviceConcurrencyLimitAspect(AdaptiveConcurrencyLimiter limiter) {
+        return new ServiceConcurrencyLimitAspect(limiter);
+    }
+
+    @Bean
+    public static BeanPostProcessor admissionControlledDataSourcePostProcessor(
+            ObjectProvider<AdaptiveConcurrencyLimiter> limiter,
+            @Value("${bookstore.service.limiter.retry-after:1s}") Duration retryAfter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof AdmissionControlledDataSource) {
+                    return bean;
+                }
+                return new AdmissionControlledDataSource(dataSource, limiter.getObject(),
+                        Math.max(1, retryAfter.toSeconds()));
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder serviceConcurrencyLimiterMetrics(AdaptiveConcurrencyLimiter limiter,
+                                                        ObjectProvider<DataSource> dataSources) {
+        return registry -> {
+            Gauge.builder("bookstore.service.limiter.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .description("Current adaptive limit on concurrent BookService calls")
+                    .register(registry);
+            Gauge.builder("bookstore.service.limiter.in_flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .description("BookService calls currently admitted by the limiter")
+                    .register(registry);
+            FunctionCounter.builder("bookstore.service.limiter.rejected", limiter, AdaptiveConcurrencyLimiter::getRejectedCount)
+                    .description("BookService calls rejected with 503")
+                    .register(registry);
+            dataSources.orderedStream().forEach(dataSource -> {
+                HikariDataSource hikari = DataSourceUnwrapper.unwrap(dataSource, HikariConfigMXBean.class, HikariDataSource.class);
+                if (hikari != null) {
+                    Gauge.builder("bookstore.datasource.pool.utilisation", hikari, ServiceConcurrencyLimitConfig::utilisation)
+                            .description("Fraction of the connection pool's maximum size in use")
+                            .tag("pool", String.valueOf(hikari.getPoolName()))
+                            .register(registry);
+                }
+            });
+        };
+    }
+
+    private static double utilisation(HikariDataSource dataSource) {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        return pool == null ? 0 : (double) pool.getActiveConnections() / dataSource.getMaximumPoolSize();
+    }
+}
@@ -1,10 +1,16 @@
 package com.chiloanee.bookstoreapiassessment.controller;
 
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,12 +18,26 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.chiloanee.bookstoreapiassessment.dto.BatchGetRequestDto;
+import com.chiloanee.bookstoreapiassessment.dto.BatchGetResultDto;
 import com.chiloanee.bookstoreapiassessment.dto.BookRequestDto;
 import com.chiloanee.bookstoreapiassessment.dto.BookResponseDto;
+import com.chiloanee.bookstoreapiassessment.dto.BulkBookRequestDto;
+import com.chiloanee.bookstoreapiassessment.dto.BulkInsertResultDto;
+import com.chiloanee.bookstoreapiassessment.dto.CursorPageDto;
+import com.chiloanee.bookstoreapiassessment.dto.SlicePageDto;
+import com.chiloanee.bookstoreapiassessment.exception.PreconditionFailedException;
+import com.chiloanee.bookstoreapiassessment.export.BookExportFormat;
+import com.chiloanee.bookstoreapiassessment.outbox.BookChangeRelay;
+import com.chiloanee.bookstoreapiassessment.pagination.SortSpecParser;
 import com.chiloanee.bookstoreapiassessment.service.BookService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -40,7 +60,10 @@ import lombok.extern.slf4j.Slf4j;
 @Tag(name = "Book Management", description = "APIs for managing books in the bookstore")
 public class BookController {
     
+    private static final int MAX_DUMMY_BOOKS = 1_000_000;
+    
     private final BookService bookService;
+    private final BookChangeRelay bookChangeRelay;
     
     @Operation(
         summary = "Create a new book", 
@@ -77,10 +100,44 @@ public class BookController {
     })
     @PostMapping
     public ResponseEntity<BookResponseDto> createBook(
-            @Valid @RequestBody BookRequestDto bookRequestDto) {
-        log.info("POST /books - Creating new book");
+            @Valid @RequestBody BookRequestDto bookRequestDto,
+            WebRequest request) {
+        log.debug("POST /books - Creating new book");
         BookResponseDto createdBook = bookService.createBook(bookRequestDto);
-        return new ResponseEntity<>(createdBook, HttpStatus.CREATED);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .eTag(versionETag(createdBook.getVersion(), request))
+                .body(createdBook);
+    }
+    
+    @Operation(
+        summary = "Create a book in a group commit",
+        description = "Queue a book to be inserted together with other queued creates in one transaction. " +
+                "The response is sent once that transaction has committed, with the assigned id and ISBN. " +
+                "Suited to clients that create many books concurrently."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                responseCode = "201",
+                description = "Book created successfully",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = BookResponseDto.class)
+                )
+            ),
+            @ApiResponse(responseCode = "400", description = "Invalid input data", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Too many creates queued, retry after Retry-After", content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content)
+    })
+    @PostMapping("/async")
+    public CompletableFuture<ResponseEntity<BookResponseDto>> createBookAsync(
+            @Valid @RequestBody BookRequestDto bookRequestDto,
+            WebRequest request) {
+        log.debug("POST /books/async - Queueing new book");
+        Representation representation = Representation.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        return bookService.createBookAsync(bookRequestDto)
+                .thenApply(createdBook -> ResponseEntity.status(HttpStatus.CREATED)
+                        .eTag(representation.tag(versionETag(createdBook.getVersion())))
+                        .body(createdBook));
     }
     
     @Operation(
@@ -99,31 +156,70 @@ public class BookController {
                     schema = @Schema(implementation = BookResponseDto.class)
                 )
             ),
+            @ApiResponse(responseCode = "304", description = "Book unchanged since the ETag in If-None-Match", content = @Content),
             @ApiResponse(responseCode = "404", description = "Book not found", content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content)
     })
     @GetMapping("/{id}")
     public ResponseEntity<BookResponseDto> getBookById(
-            @Parameter(description = "Book ID") @PathVariable Long id) {
-        log.info("GET /books/{} - Fetching book by ID", id);
+            @Parameter(description = "Book ID") @PathVariable Long id,
+            WebRequest request) {
+        log.debug("GET /books/{} - Fetching book by ID", id);
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && request.checkNotModified(versionETag(bookService.getBookVersion(id), request))) {
+            return null;
+        }
         BookResponseDto book = bookService.getBookById(id);
-        return ResponseEntity.ok(book);
+        return ResponseEntity.ok()
+                .eTag(versionETag(book.getVersion(), request))
+                .body(book);
     }
     
-    @Operation(summary = "Update a book", description = "Update an existing book")
+    @Operation(
+        summary = "Get many books by ID",
+        description = "Look up to " + BatchGetRequestDto.MAX_IDS + " books in one request instead of one GET per book. " +
+                "Items come back in request order, and ids without a book are marked as not found."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Lookup completed, including ids that were not found",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = BatchGetResultDto.class)
+                )
+            ),
+            @ApiResponse(responseCode = "400", description = "No ids, a null id or too many ids", content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content)
+    })
+    @PostMapping("/batch-get")
+    public ResponseEntity<BatchGetResultDto> getBooksByIds(
+            @Valid @RequestBody BatchGetRequestDto batchGetRequestDto) {
+        log.debug("POST /books/batch-get - Fetching {} books by ID", batchGetRequestDto.getIds().size());
+        return ResponseEntity.ok(bookService.getBooksByIds(batchGetRequestDto.getIds()));
+    }
+    
+    @Operation(summary = "Update a book", description = "Update an existing book. Send the book's ETag in If-Match " +
+            "to update only if nobody else has changed it since it was read.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Book updated successfully"),
             @ApiResponse(responseCode = "400", description = "Invalid input data"),
             @ApiResponse(responseCode = "404", description = "Book not found"),
+            @ApiResponse(responseCode = "409", description = "Book modified concurrently"),
+            @ApiResponse(responseCode = "412", description = "Book no longer matches If-Match"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PutMapping("/{id}")
     public ResponseEntity<BookResponseDto> updateBook(
             @Parameter(description = "Book ID") @PathVariable Long id,
-            @Valid @RequestBody BookRequestDto bookRequestDto) {
-        log.info("PUT /books/{} - Updating book", id);
-        BookResponseDto updatedBook = bookService.updateBook(id, bookRequestDto);
-        return ResponseEntity.ok(updatedBook);
+            @Parameter(description = "ETag of the version being replaced") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Valid @RequestBody BookRequestDto bookRequestDto,
+            WebRequest request) {
+        log.debug("PUT /books/{} - Updating book", id);
+        BookResponseDto updatedBook = bookService.updateBook(id, bookRequestDto, expectedVersions(ifMatch));
+        return ResponseEntity.ok()
+                .eTag(versionETag(updatedBook.getVersion(), request))
+                .body(updatedBook);
     }
     
     @Operation(summary = "Delete a book", description = "Delete a book by its ID")
@@ -135,7 +231,7 @@ public class BookController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteBook(
             @Parameter(description = "Book ID") @PathVariable Long id) {
-        log.info("DELETE /books/{} - Deleting book", id);
+        log.debug("DELETE /books/{} - Deleting book", id);
         bookService.deleteBook(id);
         return ResponseEntity.noContent().build();
     }
@@ -143,23 +239,61 @@ public class BookController {
     @Operation(summary = "Get all books", description = "Retrieve all books with pagination and sorting")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Books retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid sort field or direction"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping
     public ResponseEntity<Page<BookResponseDto>> getAllBooks(
             @Parameter(description = "Page number (0-based)") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
-            @Parameter(description = "Sort by field") @RequestParam(defaultValue = "id") String sortBy,
-            @Parameter(description = "Sort direction") @RequestParam(defaultValue = "asc") String sortDir) {
+            @Parameter(description = "Sort fields (id, title, author, isbn), comma-separated, each optionally " +
+                    "suffixed with :asc or :desc; id is appended as a tiebreaker", example = "author,title:desc")
+            @RequestParam(defaultValue = "id") String sortBy,
+            @Parameter(description = "Sort direction of fields without a suffix") @RequestParam(defaultValue = "asc") String sortDir,
+            WebRequest request) {
+        
+        log.debug("GET /books - Fetching books with pagination");
         
-        log.info("GET /books - Fetching books with pagination");
+        Sort sort = SortSpecParser.parse(sortBy, sortDir);
+        String eTag = catalogueETag(request);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
         
-        Sort sort = sortDir.equalsIgnoreCase("desc") ? 
-                Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
         
         Page<BookResponseDto> books = bookService.getAllBooks(pageable);
-        return ResponseEntity.ok(books);
+        return ResponseEntity.ok().eTag(eTag).body(books);
+    }
+    
+    @Operation(
+        summary = "Get all books by cursor",
+        description = "Keyset pagination: pass an empty cursor for the first page, then the returned 'next' " +
+                "cursor until it is absent. Every page costs the same regardless of depth, and the total " +
+                "count is only computed when requested."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Books retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor, sort field or page size"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPageDto<BookResponseDto>> getAllBooksByCursor(
+            @Parameter(description = "Cursor from the previous page, empty for the first page") @RequestParam String cursor,
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Sort by field (id, title, author, isbn)") @RequestParam(defaultValue = "id") String sortBy,
+            @Parameter(description = "Sort direction") @RequestParam(defaultValue = "asc") String sortDir,
+            @Parameter(description = "Also return the total number of books") @RequestParam(defaultValue = "false") boolean includeTotal,
+            WebRequest request) {
+        
+        log.debug("GET /books?cursor - Fetching books by cursor");
+        
+        String eTag = catalogueETag(request);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        CursorPageDto<BookResponseDto> books = bookService.getBooksAfter(cursor, size, sortBy, sortDir, includeTotal);
+        return ResponseEntity.ok().eTag(eTag).body(books);
     }
     
     @Operation(
@@ -188,18 +322,78 @@ public class BookController {
             @Parameter(description = "Search by title") @RequestParam(required = false) String title,
             @Parameter(description = "Search by author") @RequestParam(required = false) String author,
             @Parameter(description = "Page number (0-based)") @RequestParam(defaultValue = "0") int page,
-            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size) {
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
+            WebRequest request) {
         
-        log.info("GET /books/search - Searching books");
+        log.debug("GET /books/search - Searching books");
         
+        String eTag = catalogueETag(request);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
         Pageable pageable = PageRequest.of(page, size);
         Page<BookResponseDto> books = bookService.searchBooks(title, author, pageable);
-        return ResponseEntity.ok(books);
+        return ResponseEntity.ok().eTag(eTag).body(books);
+    }
+    
+    @Operation(
+        summary = "Search books with an approximate total",
+        description = "Like /books/search, but returns hasNext and a total that is capped, instead of counting " +
+                "every match; totalCapped says that there are at least totalElements matches"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Books retrieved successfully"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping(value = "/search", params = {"count=approximate", "!cursor"})
+    public ResponseEntity<SlicePageDto<BookResponseDto>> searchBooksApproximate(
+            @Parameter(description = "Search by title") @RequestParam(required = false) String title,
+            @Parameter(description = "Search by author") @RequestParam(required = false) String author,
+            @Parameter(description = "Page number (0-based)") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
+            WebRequest request) {
+        
+        log.debug("GET /books/search?count=approximate - Searching books");
+        
+        String eTag = catalogueETag(request);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        SlicePageDto<BookResponseDto> books = bookService.searchBooksApproximate(title, author, PageRequest.of(page, size));
+        return ResponseEntity.ok().eTag(eTag).body(books);
+    }
+    
+    @Operation(
+        summary = "Search books by cursor",
+        description = "Keyset pagination over search results, ordered by id"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Books retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or page size"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping(value = "/search", params = "cursor")
+    public ResponseEntity<CursorPageDto<BookResponseDto>> searchBooksByCursor(
+            @Parameter(description = "Search by title") @RequestParam(required = false) String title,
+            @Parameter(description = "Search by author") @RequestParam(required = false) String author,
+            @Parameter(description = "Cursor from the previous page, empty for the first page") @RequestParam String cursor,
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Also return the total number of matches") @RequestParam(defaultValue = "false") boolean includeTotal,
+            WebRequest request) {
+        
+        log.debug("GET /books/search?cursor - Searching books by cursor");
+        
+        String eTag = catalogueETag(request);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        CursorPageDto<BookResponseDto> books = bookService.searchBooksAfter(title, author, cursor, size, includeTotal);
+        return ResponseEntity.ok().eTag(eTag).body(books);
     }
     
     @Operation(
         summary = "Generate dummy books", 
-        description = "Generate a specified number of dummy books for testing purposes"
+        description = "Generate a specified number of dummy books (up to 1,000,000) through the bulk insert pipeline"
     )
     @ApiResponses(value = {
             @ApiResponse(
@@ -218,13 +412,137 @@ public class BookController {
             @Parameter(description = "Number of dummy books to generate") 
             @RequestParam(defaultValue = "10") int count) {
         
-        log.info("POST /books/generate-dummy - Generating {} dummy books", count);
+        log.debug("POST /books/generate-dummy - Generating {} dummy books", count);
         
-        if (count <= 0 || count > 100) {
-            return ResponseEntity.badRequest().body("Count must be between 1 and 100");
+        if (count <= 0 || count > MAX_DUMMY_BOOKS) {
+            return ResponseEntity.badRequest().body("Count must be between 1 and " + MAX_DUMMY_BOOKS);
         }
         
         String result = bookService.generateDummyBooks(count);
         return ResponseEntity.ok(result);
     }
+    
+    @Operation(
+        summary = "Bulk create books",
+        description = "Insert up to " + BulkBookRequestDto.MAX_BOOKS + " books in one request using batched " +
+                "JDBC inserts committed in chunks. ISBNs are generated as for single creates."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                responseCode = "201",
+                description = "Books created successfully",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = BulkInsertResultDto.class)
+                )
+            ),
+            @ApiResponse(responseCode = "400", description = "Invalid input data", content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content)
+    })
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkInsertResultDto> bulkCreateBooks(
+            @Valid @RequestBody BulkBookRequestDto bulkBookRequestDto) {
+        log.debug("POST /books/bulk - Creating {} books", bulkBookRequestDto.getBooks().size());
+        BulkInsertResultDto result = bookService.bulkCreateBooks(bulkBookRequestDto.getBooks());
+        return new ResponseEntity<>(result, HttpStatus.CREATED);
+    }
+    
+    @Operation(
+        summary = "Export all books",
+        description = "Stream the whole catalogue in id order as NDJSON (one JSON object per line) or CSV. " +
+                "Rows are read with a database cursor and written as they arrive, so the response starts " +
+                "immediately and memory use does not grow with the catalogue."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Books streamed successfully",
+                content = {
+                    @Content(mediaType = "application/x-ndjson"),
+                    @Content(mediaType = "text/csv")
+                }
+            ),
+            @ApiResponse(responseCode = "400", description = "Unsupported format", content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content)
+    })
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportBooks(
+            @Parameter(description = "Export format: ndjson or csv")
+            @RequestParam(defaultValue = "ndjson") String format) {
+        
+        BookExportFormat exportFormat = BookExportFormat.fromParameter(format);
+        log.debug("GET /books/export - Exporting books as {}", exportFormat);
+        
+        StreamingResponseBody body = out -> bookService.exportBooks(exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"books." + exportFormat.getFileExtension() + "\"")
+                .body(body);
+    }
+    
+    @Operation(
+        summary = "Stream book changes",
+        description = "Server-Sent Events stream of every committed create, update and delete, in commit order. " +
+                "Each event's id is its change offset: reconnect with Last-Event-ID, or pass after, to resume " +
+                "after the last change processed instead of re-reading the catalogue."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Stream opened",
+                content = @Content(mediaType = "text/event-stream")
+            ),
+            @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content)
+    })
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBookChanges(
+            @Parameter(description = "Offset to resume after; defaults to the next change")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Set by EventSource clients when reconnecting")
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        Long offset = after != null ? after : lastEventId;
+        log.debug("GET /books/changes - Streaming book changes after {}", offset);
+        return bookChangeRelay.subscribe(offset);
+    }
+    
+    private String catalogueETag(WebRequest request) {
+        return Representation.negotiate(request.getHeader(HttpHeaders.ACCEPT))
+                .tag(bookService.getCatalogueVersion().toETag());
+    }
+    
+    private static String versionETag(Long version, WebRequest request) {
+        return Representation.negotiate(request.getHeader(HttpHeaders.ACCEPT)).tag(versionETag(version));
+    }
+    
+    private static String versionETag(Long version) {
+        return "\"" + version + "\"";
+    }
+    
+    /**
+     * Reads the versions a client accepts from every tag in {@code If-Match},
+     * whichever representation each was issued for. Absent or {@code *} means
+     * any version; weak or foreign tags can never match, so a header of only
+     * those fails at once.
+     */
+    private static Set<Long> expectedVersions(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Set<Long> versions = new HashSet<>();
+        for (String tag : ifMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+                try {
+                    versions.add(Long.parseLong(Representation.untag(tag.substring(1, tag.length() - 1))));
+                } catch (NumberFormatException e) {
+                    // not one of ours
+                }
+            }
+        }
+        if (versions.isEmpty()) {
+            throw new PreconditionFailedException("If-Match must hold a strong ETag returned by this API: " + ifMatch);
+        }
+        return versions;
+    }
 }
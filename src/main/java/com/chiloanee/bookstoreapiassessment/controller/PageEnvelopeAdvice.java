@@ -0,0 +1,47 @@
+package com.chiloanee.bookstoreapiassessment.controller;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import com.chiloanee.bookstoreapiassessment.dto.SlimPageDto;
+
+
+/**
+ * Writes {@link Page} responses as a {@link SlimPageDto} when the client
+ * accepts {@value #SLIM_JSON_VALUE} or CBOR, and as the full Spring Data page
+ * for plain JSON, so existing clients are unaffected. {@code WebMvcConfig}
+ * marks every {@link BookController} response, 304s included, with
+ * {@code Vary: Accept}.
+ */
+@RestControllerAdvice(assignableTypes = BookController.class)
+public class PageEnvelopeAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String SLIM_JSON_VALUE = "application/vnd.bookstore.slim+json";
+    public static final MediaType SLIM_JSON = MediaType.parseMediaType(SLIM_JSON_VALUE);
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return AbstractJackson2HttpMessageConverter.class.isAssignableFrom(converterType);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (!(body instanceof Page<?> page)) {
+            return body;
+        }
+        if (SLIM_JSON.equalsTypeAndSubtype(selectedContentType)
+                || MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(selectedContentType)) {
+            return SlimPageDto.of(page);
+        }
+        return body;
+    }
+}
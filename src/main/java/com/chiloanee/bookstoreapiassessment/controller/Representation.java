@@ -0,0 +1,73 @@
+package com.chiloanee.bookstoreapiassessment.controller;
+
+import java.util.List;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+
+
+/**
+ * The formats {@link BookController} negotiates from {@code Accept}, in the
+ * order Spring MVC prefers them when the client accepts several equally.
+ * Each has its own ETag suffix, so a cached JSON page never validates a CBOR
+ * request; plain JSON keeps the bare tag existing clients hold.
+ */
+public enum Representation {
+
+    JSON(MediaType.APPLICATION_JSON, ""),
+    SLIM_JSON(PageEnvelopeAdvice.SLIM_JSON, "-slim"),
+    CBOR(MediaType.APPLICATION_CBOR, "-cbor");
+
+    private final MediaType mediaType;
+    private final String suffix;
+
+    Representation(MediaType mediaType, String suffix) {
+        this.mediaType = mediaType;
+        this.suffix = suffix;
+    }
+
+    /**
+     * Picks the representation the message converters will write for
+     * {@code accept}; a missing or malformed header means JSON, as it does
+     * for the converters.
+     */
+    public static Representation negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return JSON;
+        }
+        List<MediaType> acceptable;
+        try {
+            acceptable = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return JSON;
+        }
+        MimeTypeUtils.sortBySpecificity(acceptable);
+        for (MediaType type : acceptable) {
+            for (Representation representation : values()) {
+                if (type.includes(representation.mediaType)) {
+                    return representation;
+                }
+            }
+        }
+        return JSON;
+    }
+
+    /** Appends this representation's suffix inside the quotes of {@code eTag}. */
+    public String tag(String eTag) {
+        if (suffix.isEmpty()) {
+            return eTag;
+        }
+        return eTag.substring(0, eTag.length() - 1) + suffix + "\"";
+    }
+
+    /** Strips a representation suffix from the opaque part of an ETag. */
+    public static String untag(String opaqueTag) {
+        for (Representation representation : values()) {
+            if (!representation.suffix.isEmpty() && opaqueTag.endsWith(representation.suffix)) {
+                return opaqueTag.substring(0, opaqueTag.length() - representation.suffix.length());
+            }
+        }
+        return opaqueTag;
+    }
+}
@@ -0,0 +1,191 @@
+package com.chiloanee.bookstoreapiassessment.datasource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Hands out connections to read-only transactions from a set of replicas,
+ * round-robin, falling back to the primary when no replica is fit to serve.
+ * <p>
+ * A replica is skipped while its last health check failed or, when a
+ * {@code lagQuery} is configured, while its measured replication lag is
+ * above {@code maxLag} or unknown. For {@code maxLag} after this instance
+ * commits a write every read goes to the primary, so a client never reads
+ * its own change back from a replica that has not applied it yet, and
+ * {@code BookCache} and the catalogue ETag are never filled from one.
+ * Writes made by other instances are not seen here.
+ */
+@Slf4j
+public class ReadReplicaDataSource extends AbstractDataSource implements Closeable {
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long maxLagNanos;
+    private final String lagQuery;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder primaryReads = new LongAdder();
+    private final ScheduledExecutorService healthChecker;
+    private volatile long lastWriteNanos;
+
+    public ReadReplicaDataSource(DataSource primary, List<Replica> replicas, Duration maxLag, String lagQuery) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.maxLagNanos = maxLag.toNanos();
+        this.lagQuery = lagQuery == null || lagQuery.isBlank() ? null : lagQuery;
+        this.lastWriteNanos = System.nanoTime() - maxLagNanos;
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "read-replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (this.lagQuery == null) {
+            this.replicas.forEach(replica -> replica.lagSeconds = 0);
+        }
+    }
+
+    /** Checks every replica now and then every {@code interval}. */
+    public void startHealthChecks(Duration interval) {
+        healthChecker.scheduleWithFixedDelay(this::checkReplicas, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /** Sends reads to the primary until a write made now has had {@code maxLag} to replicate. */
+    public void recordWrite() {
+        lastWriteNanos = System.nanoTime();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (System.nanoTime() - lastWriteNanos >= maxLagNanos) {
+            int start = next.getAndIncrement();
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+                if (!replica.isAvailable(maxLagNanos)) {
+                    continue;
+                }
+                try {
+                    Connection connection = replica.dataSource.getConnection();
+                    replicaReads.increment();
+                    return connection;
+                } catch (SQLException e) {
+                    replica.markDown(e);
+                }
+            }
+        }
+        primaryReads.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Read replicas use the configured credentials");
+    }
+
+    void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (lagQuery != null) {
+                    replica.lagSeconds = lag(connection);
+                }
+                if (!replica.healthy) {
+                    log.info("Read replica {} is back (lag {} s)", replica.name, replica.lagSeconds);
+                }
+                replica.healthy = true;
+            } catch (SQLException | RuntimeException e) {
+                replica.markDown(e);
+            }
+        }
+    }
+
+    private double lag(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(lagQuery)) {
+            if (!resultSet.next()) {
+                return Double.NaN;
+            }
+            double lag = resultSet.getDouble(1);
+            return resultSet.wasNull() ? Double.NaN : lag;
+        }
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    public long getReplicaReads() {
+        return replicaReads.sum();
+    }
+
+    public long getPrimaryReads() {
+        return primaryReads.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+        healthChecker.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    /** One replica's pool and its last observed state. */
+    public static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+        private volatile double lagSeconds = Double.NaN;
+
+        public Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        boolean isAvailable(long maxLagNanos) {
+            return healthy && lagSeconds * 1e9 <= maxLagNanos;
+        }
+
+        void markDown(Exception e) {
+            if (healthy) {
+                log.warn("Read replica {} is unavailable, reading from the primary: {}", name, e.getMessage());
+            }
+            healthy = false;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public DataSource getDataSource() {
+            return dataSource;
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+
+        /** Last measured replication lag, {@code NaN} if unknown. */
+        public double getLagSeconds() {
+            return lagSeconds;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.chiloanee.bookstoreapiassessment.datasource;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+
+/**
+ * Counts and times the statements executed on the calling thread while a
+ * {@link Recording} is open, so the work a single request puts on the
+ * database can be reported alongside its latency.
+ * <p>
+ * Only the {@code execute*} calls are timed; rows fetched lazily while
+ * iterating a result set are not. Threads without an open recording pay one
+ * thread-local lookup per statement.
+ */
+public class StatementMetricsDataSource extends DelegatingDataSource {
+
+    private static final ThreadLocal<Recording> CURRENT = new ThreadLocal<>();
+
+    public StatementMetricsDataSource(DataSource target) {
+        super(target);
+    }
+
+    /**
+     * Starts recording the statements of the current thread, replacing any
+     * recording already open on it.
+     */
+    public static Recording record() {
+        Recording recording = new Recording();
+        CURRENT.set(recording);
+        return recording;
+    }
+
+    /** The recording open on the current thread, or {@code null}. */
+    public static Recording current() {
+        return CURRENT.get();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return instrumented(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return instrumented(super.getConnection(username, password));
+    }
+
+    private static Connection instrumented(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        case "unwrap" -> {
+                            if (((Class<?>) args[0]).isInstance(proxy)) {
+                                return proxy;
+                            }
+                        }
+                        case "isWrapperFor" -> {
+                            if (((Class<?>) args[0]).isInstance(proxy)) {
+                                return true;
+                            }
+                        }
+                        default -> {
+                        }
+                    }
+                    Object result = invoke(connection, method, args);
+                    return switch (method.getName()) {
+                        case "createStatement" -> instrumented((Statement) result, Statement.class);
+                        case "prepareStatement" -> instrumented((PreparedStatement) result, PreparedStatement.class);
+                        case "prepareCall" -> instrumented((CallableStatement) result, CallableStatement.class);
+                        default -> result;
+                    };
+                });
+    }
+
+    private static <S extends Statement> S instrumented(S statement, Class<S> type) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        default -> {
+                        }
+                    }
+                    Recording recording = method.getName().startsWith("execute") ? CURRENT.get() : null;
+                    if (recording == null) {
+                        return invoke(statement, method, args);
+                    }
+                    long start = System.nanoTime();
+                    try {
+                        return invoke(statement, method, args);
+                    } finally {
+                        recording.statements++;
+                        recording.nanos += System.nanoTime() - start;
+                    }
+                }));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /** Statements executed on one thread between {@link #record()} and {@link #close()}. */
+    public static final class Recording implements AutoCloseable {
+        private int statements;
+        private long nanos;
+
+        private Recording() {
+        }
+
+        public int getStatements() {
+            return statements;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        @Override
+        public void close() {
+            if (CURRENT.get() == this) {
+                CURRENT.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.chiloanee.bookstoreapiassessment.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+/**
+ * One requested id of a batch get: {@code book} is present only when
+ * {@code found} is set.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchGetItemDto {
+    private Long id;
+    private boolean found;
+    private BookResponseDto book;
+}
@@ -0,0 +1,19 @@
+package com.chiloanee.bookstoreapiassessment.dto;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+
+@Data
+public class BatchGetRequestDto {
+    
+    public static final int MAX_IDS = 1000;
+    
+    @NotEmpty(message = "Ids cannot be empty")
+    @Size(max = MAX_IDS, message = "Cannot get more than 1000 books per request")
+    private List<@NotNull(message = "Id cannot be null") Long> ids;
+}
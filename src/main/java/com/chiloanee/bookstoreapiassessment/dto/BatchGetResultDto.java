@@ -0,0 +1,20 @@
+package com.chiloanee.bookstoreapiassessment.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+/**
+ * Results of a batch get, one item per requested id in request order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchGetResultDto {
+    private List<BatchGetItemDto> items;
+    private int found;
+    private int notFound;
+}
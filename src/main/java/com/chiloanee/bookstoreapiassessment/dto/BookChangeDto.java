@@ -0,0 +1,38 @@
+package com.chiloanee.bookstoreapiassessment.dto;
+
+import java.time.Instant;
+
+import com.chiloanee.bookstoreapiassessment.event.BookChangedEvent;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+/**
+ * One entry of the book change stream. {@code changeId} is its offset:
+ * changes are delivered in increasing order, and a consumer resumes after
+ * the last one it processed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookChangeDto {
+    private long changeId;
+    private Long bookId;
+    private BookChangedEvent.Type type;
+    private String title;
+    private String author;
+    private String isbn;
+    private Long version;
+    private Instant changedAt;
+
+    // What an update replaced, and the node that wrote it, for the cluster transport only
+    @JsonIgnore
+    private String previousTitle;
+    @JsonIgnore
+    private String previousAuthor;
+    @JsonIgnore
+    private String origin;
+}
@@ -1,12 +1,21 @@
 package com.chiloanee.bookstoreapiassessment.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class BookResponseDto {
     private Long id;
     private String title;
     private String author;
     private String isbn;
+    
+    @JsonIgnore
+    private Long version;
 }
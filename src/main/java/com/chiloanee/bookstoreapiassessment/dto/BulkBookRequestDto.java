@@ -0,0 +1,19 @@
+package com.chiloanee.bookstoreapiassessment.dto;
+
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+
+@Data
+public class BulkBookRequestDto {
+    
+    public static final int MAX_BOOKS = 10_000;
+    
+    @NotEmpty(message = "Books cannot be empty")
+    @Size(max = MAX_BOOKS, message = "Cannot import more than 10000 books per request")
+    private List<@Valid BookRequestDto> books;
+}
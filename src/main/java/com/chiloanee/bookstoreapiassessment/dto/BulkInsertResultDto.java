@@ -0,0 +1,16 @@
+package com.chiloanee.bookstoreapiassessment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkInsertResultDto {
+    private int rowsInserted;
+    private int chunks;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+}
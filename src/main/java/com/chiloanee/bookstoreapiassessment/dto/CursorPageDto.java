@@ -0,0 +1,21 @@
+package com.chiloanee.bookstoreapiassessment.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPageDto<T> {
+    private List<T> content;
+    private int size;
+    private String next;
+    private Long totalElements;
+}
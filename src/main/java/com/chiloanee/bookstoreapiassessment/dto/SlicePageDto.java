@@ -0,0 +1,25 @@
+package com.chiloanee.bookstoreapiassessment.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+/**
+ * A page that knows whether another follows but only has an approximate
+ * total: {@code totalElements} is exact unless {@code totalCapped} is set, in
+ * which case there are at least that many.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlicePageDto<T> {
+    private List<T> content;
+    private int page;
+    private int size;
+    private boolean hasNext;
+    private long totalElements;
+    private boolean totalCapped;
+}
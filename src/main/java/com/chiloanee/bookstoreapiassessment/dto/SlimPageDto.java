@@ -0,0 +1,30 @@
+package com.chiloanee.bookstoreapiassessment.dto;
+
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+/**
+ * A {@link Page} without the pageable and sort metadata Jackson writes for
+ * it, which the request already carries.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlimPageDto<T> {
+    private List<T> content;
+    private int page;
+    private int size;
+    private long totalElements;
+    private int totalPages;
+
+    public static <T> SlimPageDto<T> of(Page<T> page) {
+        return new SlimPageDto<>(page.getContent(), page.getNumber(), page.getSize(), page.getTotalElements(),
+                page.getTotalPages());
+    }
+}
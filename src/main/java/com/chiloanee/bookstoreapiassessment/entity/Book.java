@@ -1,28 +1,44 @@
 package com.chiloanee.bookstoreapiassessment.entity;
 
+import com.chiloanee.bookstoreapiassessment.event.BookChangeListener;
+import com.chiloanee.bookstoreapiassessment.isbn.IsbnAssignmentListener;
+import com.chiloanee.bookstoreapiassessment.repository.BookCountListener;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 
 @Entity
 @Table(name = "books")
+@EntityListeners({IsbnAssignmentListener.class, BookChangeListener.class, BookCountListener.class})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Book {
     
+    /**
+     * Pooled sequence ids: Hibernate reserves {@code allocationSize} ids per
+     * sequence call, so ids are known before the INSERT and inserts can be
+     * JDBC-batched (IDENTITY forces one round trip per row).
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "books_seq")
+    @SequenceGenerator(name = "books_seq", sequenceName = "books_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "Title cannot be blank")
@@ -38,43 +54,25 @@ public class Book {
     @Column(unique = true, nullable = false, length = 13)
     private String isbn;
     
-    @PrePersist
-    private void generateIsbn() {
-        if (this.isbn == null) {
-            this.isbn = generateUniqueIsbn();
-        }
-    }
+    /**
+     * Optimistic-lock version, bumped by Hibernate on every update and exposed
+     * to clients as the book's ETag.
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
     
-
-    private String generateUniqueIsbn() {
-
-        String basePrefix = "978";
-        
-
-        StringBuilder isbnBuilder = new StringBuilder(basePrefix);
-        for (int i = 0; i < 9; i++) {
-            isbnBuilder.append((int) (Math.random() * 10));
-        }
-        
-
-        String isbnWithoutCheckDigit = isbnBuilder.toString();
-        int checkDigit = calculateIsbnCheckDigit(isbnWithoutCheckDigit);
-        isbnBuilder.append(checkDigit);
-        
-        return isbnBuilder.toString();
-    }
+    /**
+     * Title and author as last read from or written to the database, kept by
+     * {@link BookChangeListener} so an update can report what it replaced.
+     */
+    @Transient
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private String persistedTitle;
     
-
-    private int calculateIsbnCheckDigit(String isbnWithoutCheckDigit) {
-        int sum = 0;
-        for (int i = 0; i < 12; i++) {
-            int digit = Character.getNumericValue(isbnWithoutCheckDigit.charAt(i));
-            if (i % 2 == 0) {
-                sum += digit * 1;
-            } else {
-                sum += digit * 3;
-            }
-        }
-        return (10 - (sum % 10)) % 10;
-    }
+    @Transient
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private String persistedAuthor;
 }
@@ -0,0 +1,32 @@
+package com.chiloanee.bookstoreapiassessment.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+/**
+ * One stripe of the maintained {@code books} row count and committed change
+ * count; the totals are the sums over all slots. Writers add to a random
+ * slot, so concurrent transactions rarely wait on the same row lock.
+ */
+@Entity
+@Table(name = "book_counts")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookCount {
+    
+    @Id
+    private int slot;
+    
+    @Column(name = "row_count", nullable = false)
+    private long rowCount;
+    
+    @Column(name = "change_count", nullable = false)
+    private long changeCount;
+}
@@ -0,0 +1,30 @@
+package com.chiloanee.bookstoreapiassessment.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+/**
+ * High-water mark of a block-reserved counter. Each reservation advances
+ * {@code nextValue} by a whole block, so nodes hand out values from their own
+ * block without touching the database again.
+ */
+@Entity
+@Table(name = "isbn_blocks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IsbnBlock {
+    
+    @Id
+    @Column(length = 32)
+    private String name;
+    
+    @Column(name = "next_value", nullable = false)
+    private long nextValue;
+}
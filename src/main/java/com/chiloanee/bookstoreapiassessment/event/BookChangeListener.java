@@ -0,0 +1,58 @@
+package com.chiloanee.bookstoreapiassessment.event;
+
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.chiloanee.bookstoreapiassessment.entity.Book;
+
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+
+/**
+ * JPA entity listener that turns {@link Book} lifecycle callbacks into
+ * {@link BookChangedEvent}s. Hooking the persistence layer rather than the
+ * service means every write path (service, repository, bulk) is covered.
+ * Instances are created by Hibernate through Spring's bean container.
+ */
+public class BookChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public BookChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostLoad
+    public void onLoad(Book book) {
+        remember(book);
+    }
+
+    @PostPersist
+    public void onPersist(Book book) {
+        publish(BookChangedEvent.Type.CREATED, book);
+    }
+
+    @PostUpdate
+    public void onUpdate(Book book) {
+        publish(BookChangedEvent.Type.UPDATED, book);
+    }
+
+    @PostRemove
+    public void onRemove(Book book) {
+        publish(BookChangedEvent.Type.DELETED, book);
+    }
+
+    private void publish(BookChangedEvent.Type type, Book book) {
+        eventPublisher.publishEvent(new BookChangedEvent(
+                type, book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(), book.getVersion(),
+                book.getPersistedTitle(), book.getPersistedAuthor()));
+        remember(book);
+    }
+
+    private static void remember(Book book) {
+        book.setPersistedTitle(book.getTitle());
+        book.setPersistedAuthor(book.getAuthor());
+    }
+}
@@ -0,0 +1,24 @@
+package com.chiloanee.bookstoreapiassessment.event;
+
+
+/**
+ * Published whenever a {@code Book} row is inserted, updated or removed.
+ * Listeners that keep derived state (search index, caches) should consume it
+ * after the surrounding transaction commits. An update carries the title and
+ * author it replaced when they were loaded in the same session; a create has
+ * none, and a delete carries the removed values as its current ones.
+ */
+public record BookChangedEvent(Type type, Long id, String title, String author, String isbn, Long version,
+                               String previousTitle, String previousAuthor) {
+
+    /** A change whose previous title and author are not known. */
+    public BookChangedEvent(Type type, Long id, String title, String author, String isbn, Long version) {
+        this(type, id, title, author, isbn, version, null, null);
+    }
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+}
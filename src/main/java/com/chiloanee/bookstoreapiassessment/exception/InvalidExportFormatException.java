@@ -0,0 +1,9 @@
+package com.chiloanee.bookstoreapiassessment.exception;
+
+
+public class InvalidExportFormatException extends RuntimeException {
+    
+    public InvalidExportFormatException(String format) {
+        super("Unsupported export format: " + format + " (expected ndjson or csv)");
+    }
+}
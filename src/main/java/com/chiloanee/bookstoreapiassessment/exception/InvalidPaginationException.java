@@ -0,0 +1,9 @@
+package com.chiloanee.bookstoreapiassessment.exception;
+
+
+public class InvalidPaginationException extends RuntimeException {
+    
+    public InvalidPaginationException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,9 @@
+package com.chiloanee.bookstoreapiassessment.exception;
+
+
+public class PreconditionFailedException extends RuntimeException {
+    
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
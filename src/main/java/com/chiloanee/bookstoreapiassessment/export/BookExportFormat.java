@@ -0,0 +1,53 @@
+package com.chiloanee.bookstoreapiassessment.export;
+
+import java.io.OutputStream;
+
+import org.springframework.http.MediaType;
+
+import com.chiloanee.bookstoreapiassessment.exception.InvalidExportFormatException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+
+/**
+ * Wire formats supported by {@code GET /books/export}.
+ */
+public enum BookExportFormat {
+
+    NDJSON(MediaType.APPLICATION_NDJSON) {
+        @Override
+        public BookExportWriter open(OutputStream out, ObjectMapper objectMapper) {
+            return new NdjsonBookExportWriter(out, objectMapper);
+        }
+    },
+    CSV(new MediaType("text", "csv")) {
+        @Override
+        public BookExportWriter open(OutputStream out, ObjectMapper objectMapper) {
+            return new CsvBookExportWriter(out);
+        }
+    };
+
+    private final MediaType mediaType;
+
+    BookExportFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getFileExtension() {
+        return name().toLowerCase();
+    }
+
+    public abstract BookExportWriter open(OutputStream out, ObjectMapper objectMapper);
+
+    public static BookExportFormat fromParameter(String value) {
+        for (BookExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new InvalidExportFormatException(value);
+    }
+}
@@ -0,0 +1,21 @@
+package com.chiloanee.bookstoreapiassessment.export;
+
+import java.io.IOException;
+
+import com.chiloanee.bookstoreapiassessment.dto.BookResponseDto;
+
+
+/**
+ * Writes exported books one row at a time. Implementations buffer and only
+ * push bytes to the client on {@link #flush()}; closing flushes but leaves the
+ * underlying response stream open.
+ */
+public interface BookExportWriter extends AutoCloseable {
+
+    void write(BookResponseDto book) throws IOException;
+
+    void flush() throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,68 @@
+package com.chiloanee.bookstoreapiassessment.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+import com.chiloanee.bookstoreapiassessment.dto.BookResponseDto;
+
+
+/**
+ * RFC 4180 CSV with a header row. Fields containing a comma, quote or line
+ * break are quoted, with embedded quotes doubled.
+ */
+class CsvBookExportWriter implements BookExportWriter {
+
+    private final BufferedWriter writer;
+
+    CsvBookExportWriter(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try {
+            writer.write("id,title,author,isbn\r\n");
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not open the export stream", e);
+        }
+    }
+
+    @Override
+    public void write(BookResponseDto book) throws IOException {
+        writer.write(String.valueOf(book.getId()));
+        writer.write(',');
+        writeField(book.getTitle());
+        writer.write(',');
+        writeField(book.getAuthor());
+        writer.write(',');
+        writeField(book.getIsbn());
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
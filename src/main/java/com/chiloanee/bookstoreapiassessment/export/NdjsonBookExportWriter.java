@@ -0,0 +1,47 @@
+package com.chiloanee.bookstoreapiassessment.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.chiloanee.bookstoreapiassessment.dto.BookResponseDto;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+
+/**
+ * One JSON object per line, serialized exactly as the other endpoints
+ * serialize {@link BookResponseDto}.
+ */
+class NdjsonBookExportWriter implements BookExportWriter {
+
+    private final JsonGenerator generator;
+    private final ObjectWriter writer;
+
+    NdjsonBookExportWriter(OutputStream out, ObjectMapper objectMapper) {
+        try {
+            this.generator = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .setRootValueSeparator(null);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not open the export stream", e);
+        }
+        this.writer = objectMapper.writerFor(BookResponseDto.class);
+    }
+
+    @Override
+    public void write(BookResponseDto book) throws IOException {
+        writer.writeValue(generator, book);
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
@@ -0,0 +1,16 @@
+package com.chiloanee.bookstoreapiassessment.isbn;
+
+import java.util.Collection;
+import java.util.Set;
+
+
+/**
+ * Finds which of a set of ISBNs are already taken by stored books.
+ */
+public interface ExistingIsbnLookup {
+
+    /**
+     * Returns the members of {@code isbns} that a stored book already carries.
+     */
+    Set<String> findExisting(Collection<String> isbns);
+}
@@ -0,0 +1,251 @@
+package com.chiloanee.bookstoreapiassessment.isbn;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.chiloanee.bookstoreapiassessment.exception.ServiceOverloadedException;
+
+import jakarta.annotation.PreDestroy;
+
+
+/**
+ * Generates ISBN-13s by running a block-reserved counter through a keyed
+ * Feistel permutation of the 9-digit body space.
+ * <p>
+ * The counter never repeats (blocks are reserved through
+ * {@link IsbnBlockAllocator}), and the permutation is a bijection, so the
+ * generator never returns an ISBN twice, while consecutive books still get
+ * unrelated-looking numbers. Books stored before the generator, such as
+ * those of an upgraded catalogue, carry ISBNs it may also reach, so a
+ * reserved block looks its ISBNs up through {@link ExistingIsbnLookup} once
+ * and skips those already taken. Handing out a value is a single
+ * {@code getAndIncrement} on the current block; the allocator and the lookup
+ * are only consulted once per {@code block-size} ISBNs.
+ * <p>
+ * Blocks are reserved on a thread of its own: the first when the
+ * application is ready, each next one once half of the current one is
+ * handed out. The reservation's transaction therefore never runs on a caller
+ * that already holds a connection, and is normally done before the block
+ * runs out. Callers that do run out first wait for it without holding a
+ * lock, and for at most {@code reserve-timeout}; then they fail with a
+ * {@link ServiceOverloadedException} instead of holding their connection
+ * while the reservation waits for one.
+ */
+@Component
+public class FeistelIsbnGenerator implements IsbnGenerator {
+
+    static final long BODY_SPACE = 1_000_000_000L;
+    private static final int[] PREFIXES = {978, 979};
+
+    // HALF * HALF >= BODY_SPACE; the few values above it are skipped by cycle-walking.
+    private static final long HALF = 31_623L;
+    private static final int ROUNDS = 4;
+
+    private final IsbnBlockAllocator allocator;
+    private final ExistingIsbnLookup existingIsbns;
+    private final int blockSize;
+    private final Duration reserveTimeout;
+    private final long[] roundKeys = new long[ROUNDS];
+
+    private final ReentrantLock refillLock = new ReentrantLock();
+    private final ExecutorService reserver = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "isbn-block-reserver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Block block = new Block(0, 0, Set.of());
+    private CompletableFuture<Block> nextBlock; // guarded by refillLock
+
+    public FeistelIsbnGenerator(IsbnBlockAllocator allocator,
+                                ExistingIsbnLookup existingIsbns,
+                                @Value("${bookstore.isbn.block-size:10000}") int blockSize,
+                                @Value("${bookstore.isbn.reserve-timeout:5s}") Duration reserveTimeout,
+                                @Value("${bookstore.isbn.key:6364136223846793005}") long key) {
+        this.allocator = allocator;
+        this.existingIsbns = existingIsbns;
+        this.blockSize = blockSize;
+        this.reserveTimeout = reserveTimeout;
+        long state = key;
+        for (int round = 0; round < ROUNDS; round++) {
+            state += 0x9E3779B97F4A7C15L;
+            roundKeys[round] = mix(state);
+        }
+    }
+
+    @Override
+    public String nextIsbn() {
+        return isbnAt(nextIndex());
+    }
+
+    private String isbnAt(long index) {
+        int prefix = (int) (index / BODY_SPACE);
+        if (prefix >= PREFIXES.length) {
+            throw new IllegalStateException("ISBN space exhausted");
+        }
+        return Isbn13.format(PREFIXES[prefix], permute(index % BODY_SPACE));
+    }
+
+    private long nextIndex() {
+        while (true) {
+            Block current = block;
+            long value = current.next.getAndIncrement();
+            if (value < current.end) {
+                if (value == current.prefetchAt) {
+                    prefetch();
+                }
+                if (current.taken.contains(value)) {
+                    continue;
+                }
+                return value;
+            }
+            CompletableFuture<Block> pending;
+            refillLock.lock();
+            try {
+                if (block != current) {
+                    continue;
+                }
+                pending = prefetch();
+            } finally {
+                refillLock.unlock();
+            }
+            Block next = await(pending);
+            refillLock.lock();
+            try {
+                if (block == current) {
+                    block = next;
+                }
+                if (nextBlock == pending) {
+                    nextBlock = null;
+                }
+            } finally {
+                refillLock.unlock();
+            }
+        }
+    }
+
+    /** Reserves the first block before any book needs it. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reserveFirstBlock() {
+        prefetch();
+    }
+
+    /** Starts reserving the next block unless that is already under way, and returns it. */
+    private CompletableFuture<Block> prefetch() {
+        refillLock.lock();
+        try {
+            if (nextBlock == null) {
+                nextBlock = CompletableFuture.supplyAsync(this::reserveBlock, reserver);
+            }
+            return nextBlock;
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    private Block reserveBlock() {
+        long start = allocator.reserve(blockSize);
+        long end = Math.min(start + blockSize, PREFIXES.length * BODY_SPACE);
+        Map<String, Long> indexes = new HashMap<>();
+        for (long index = start; index < end; index++) {
+            indexes.put(isbnAt(index), index);
+        }
+        Set<Long> taken = new HashSet<>();
+        for (String isbn : existingIsbns.findExisting(indexes.keySet())) {
+            taken.add(indexes.get(isbn));
+        }
+        return new Block(start, start + blockSize, taken);
+    }
+
+    /**
+     * Waits up to {@code reserveTimeout} for a reservation. A timed-out one
+     * stays pending for the next caller; a failed one is dropped, so the next
+     * caller retries it.
+     */
+    private Block await(CompletableFuture<Block> pending) {
+        try {
+            return pending.get(reserveTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new ServiceOverloadedException("Timed out reserving ISBNs, retry shortly", 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reserving ISBNs", e);
+        } catch (ExecutionException e) {
+            refillLock.lock();
+            try {
+                if (nextBlock == pending) {
+                    nextBlock = null;
+                }
+            } finally {
+                refillLock.unlock();
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Could not reserve ISBNs", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        reserver.shutdownNow();
+    }
+
+    /**
+     * Keyed bijection on {@code [0, BODY_SPACE)}.
+     */
+    long permute(long value) {
+        do {
+            value = feistel(value);
+        } while (value >= BODY_SPACE);
+        return value;
+    }
+
+    private long feistel(long value) {
+        long left = value / HALF;
+        long right = value % HALF;
+        for (int round = 0; round < ROUNDS; round++) {
+            long next = (left + Math.floorMod(mix(right ^ roundKeys[round]), HALF)) % HALF;
+            left = right;
+            right = next;
+        }
+        return left * HALF + right;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static final class Block {
+
+        final AtomicLong next;
+        final long end;
+        final long prefetchAt;
+        final Set<Long> taken;
+
+        Block(long start, long end, Set<Long> taken) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+            this.prefetchAt = start + (end - start) / 2;
+            this.taken = taken;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.chiloanee.bookstoreapiassessment.isbn;
+
+
+/**
+ * Allocation-light ISBN-13 formatting: digits are written straight into a
+ * {@code char[13]} and the check digit is computed on primitives.
+ */
+public final class Isbn13 {
+
+    public static final int LENGTH = 13;
+
+    private Isbn13() {
+    }
+
+    /**
+     * Formats a 3-digit EAN prefix (978 or 979) and a 9-digit body, appending the check digit.
+     */
+    public static String format(int prefix, long body) {
+        char[] digits = new char[LENGTH];
+        digits[0] = (char) ('0' + prefix / 100);
+        digits[1] = (char) ('0' + prefix / 10 % 10);
+        digits[2] = (char) ('0' + prefix % 10);
+        for (int i = LENGTH - 2; i >= 3; i--) {
+            digits[i] = (char) ('0' + body % 10);
+            body /= 10;
+        }
+        digits[LENGTH - 1] = (char) ('0' + checkDigit(digits));
+        return new String(digits);
+    }
+
+    /**
+     * ISBN-13 check digit of the first 12 digits: weights alternate 1 and 3.
+     */
+    public static int checkDigit(CharSequence digits) {
+        int sum = 0;
+        for (int i = 0; i < LENGTH - 1; i++) {
+            sum += (digits.charAt(i) - '0') * ((i & 1) == 0 ? 1 : 3);
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    public static boolean isValid(String isbn) {
+        if (isbn == null || isbn.length() != LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < LENGTH; i++) {
+            char c = isbn.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return checkDigit(isbn) == isbn.charAt(LENGTH - 1) - '0';
+    }
+
+    private static int checkDigit(char[] digits) {
+        int sum = 0;
+        for (int i = 0; i < LENGTH - 1; i++) {
+            sum += (digits[i] - '0') * ((i & 1) == 0 ? 1 : 3);
+        }
+        return (10 - sum % 10) % 10;
+    }
+}
@@ -0,0 +1,30 @@
+package com.chiloanee.bookstoreapiassessment.isbn;
+
+import org.springframework.beans.factory.ObjectProvider;
+
+import com.chiloanee.bookstoreapiassessment.entity.Book;
+
+import jakarta.persistence.PrePersist;
+
+
+/**
+ * Assigns an ISBN to books that are persisted without one. Created by
+ * Hibernate through Spring's bean container while the entity manager factory
+ * is being built, so the generator (which itself needs the transaction
+ * manager) is only looked up on first use.
+ */
+public class IsbnAssignmentListener {
+
+    private final ObjectProvider<IsbnGenerator> isbnGenerator;
+
+    public IsbnAssignmentListener(ObjectProvider<IsbnGenerator> isbnGenerator) {
+        this.isbnGenerator = isbnGenerator;
+    }
+
+    @PrePersist
+    public void assignIsbn(Book book) {
+        if (book.getIsbn() == null) {
+            book.setIsbn(isbnGenerator.getObject().nextIsbn());
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.chiloanee.bookstoreapiassessment.isbn;
+
+
+/**
+ * Reserves contiguous ranges of a shared counter.
+ */
+public interface IsbnBlockAllocator {
+
+    /**
+     * Reserves {@code blockSize} consecutive values and returns the first one.
+     * No other caller, in this or any other instance, is given an overlapping range.
+     */
+    long reserve(int blockSize);
+}
@@ -0,0 +1,11 @@
+package com.chiloanee.bookstoreapiassessment.isbn;
+
+
+/**
+ * Source of ISBN-13s for new books. Implementations must never return the
+ * same value twice, across threads and across application instances.
+ */
+public interface IsbnGenerator {
+
+    String nextIsbn();
+}
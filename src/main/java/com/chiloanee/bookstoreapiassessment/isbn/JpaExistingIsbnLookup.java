@@ -0,0 +1,50 @@
+package com.chiloanee.bookstoreapiassessment.isbn;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+
+/**
+ * Looks ISBNs up through {@code uk_books_isbn}, {@value #CHUNK} per query, in
+ * a read-only transaction of its own.
+ */
+@Component
+public class JpaExistingIsbnLookup implements ExistingIsbnLookup {
+
+    static final int CHUNK = 1_000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public JpaExistingIsbnLookup(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public Set<String> findExisting(Collection<String> isbns) {
+        List<String> all = new ArrayList<>(isbns);
+        return transactionTemplate.execute(status -> {
+            Set<String> existing = new HashSet<>();
+            for (int from = 0; from < all.size(); from += CHUNK) {
+                existing.addAll(entityManager
+                        .createQuery("SELECT b.isbn FROM Book b WHERE b.isbn IN :isbns", String.class)
+                        .setParameter("isbns", all.subList(from, Math.min(from + CHUNK, all.size())))
+                        .getResultList());
+            }
+            return existing;
+        });
+    }
+}
@@ -0,0 +1,64 @@
+package com.chiloanee.bookstoreapiassessment.isbn;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.chiloanee.bookstoreapiassessment.entity.IsbnBlock;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Reserves blocks from the {@code isbn_blocks} table under a row lock in a
+ * separate, short transaction, so the reservation commits independently of
+ * (and is never rolled back with) the book insert that triggered it.
+ */
+@Component
+@Slf4j
+public class JpaIsbnBlockAllocator implements IsbnBlockAllocator {
+
+    static final String COUNTER_NAME = "isbn";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public JpaIsbnBlockAllocator(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public long reserve(int blockSize) {
+        try {
+            return reserveOnce(blockSize);
+        } catch (DataIntegrityViolationException | PersistenceException e) {
+            // Another instance created the counter row first; it exists now.
+            return reserveOnce(blockSize);
+        }
+    }
+
+    private long reserveOnce(int blockSize) {
+        Long start = transactionTemplate.execute(status -> {
+            IsbnBlock block = entityManager.find(IsbnBlock.class, COUNTER_NAME, LockModeType.PESSIMISTIC_WRITE);
+            if (block == null) {
+                entityManager.persist(new IsbnBlock(COUNTER_NAME, blockSize));
+                entityManager.flush();
+                return 0L;
+            }
+            long first = block.getNextValue();
+            block.setNextValue(first + blockSize);
+            return first;
+        });
+        log.debug("Reserved ISBN block [{}, {})", start, start + blockSize);
+        return start;
+    }
+}
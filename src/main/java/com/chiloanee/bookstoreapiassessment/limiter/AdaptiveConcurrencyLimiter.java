@@ -0,0 +1,115 @@
+package com.chiloanee.bookstoreapiassessment.limiter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Gradient-style adaptive concurrency limit.
+ * <p>
+ * Every completed call reports its latency. A slow moving average of those
+ * samples stands in for the latency of an unloaded system; when recent
+ * latency rises above it by more than {@code tolerance} the limit shrinks in
+ * proportion, otherwise it grows by roughly {@code sqrt(limit)} per sample
+ * while the limit is actually being used. Calls beyond the limit are
+ * rejected immediately rather than queued, so latency stays bounded and
+ * the caller can back off.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double SHORT_WINDOW = 0.1;
+    private static final double LONG_WINDOW = 0.002;
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private double shortRttNanos;
+    private double longRttNanos;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected 1 <= minLimit <= initialLimit <= maxLimit, got %d, %d, %d", minLimit, initialLimit, maxLimit));
+        }
+        if (tolerance < 1.0) {
+            throw new IllegalArgumentException("tolerance must be at least 1.0");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.limit = initialLimit;
+        this.estimatedLimit = initialLimit;
+    }
+
+    /**
+     * Takes a slot if fewer than {@link #getLimit()} calls are in flight.
+     * A {@code true} result must be matched by exactly one
+     * {@link #release(long, boolean)}.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns a slot. {@code sample} says whether {@code latencyNanos}
+     * reflects database work and should adjust the limit.
+     */
+    public void release(long latencyNanos, boolean sample) {
+        int inFlightAtCompletion = inFlight.getAndDecrement();
+        if (sample) {
+            update(latencyNanos, inFlightAtCompletion);
+        }
+    }
+
+    private synchronized void update(long latencyNanos, int inFlightAtCompletion) {
+        if (longRttNanos == 0) {
+            shortRttNanos = latencyNanos;
+            longRttNanos = latencyNanos;
+            return;
+        }
+        shortRttNanos += (latencyNanos - shortRttNanos) * SHORT_WINDOW;
+        longRttNanos += (latencyNanos - longRttNanos) * LONG_WINDOW;
+        if (longRttNanos > shortRttNanos * 2) {
+            // Load dropped well below what the long average remembers: let it catch up
+            longRttNanos *= 0.95;
+        }
+
+        // Not using the limit we have, so latency says nothing about raising it
+        if (inFlightAtCompletion < estimatedLimit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRttNanos / shortRttNanos));
+        double queueSize = Math.sqrt(estimatedLimit);
+        double newLimit = estimatedLimit * gradient + queueSize;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit,
+                estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING));
+        limit = (int) estimatedLimit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,57 @@
+package com.chiloanee.bookstoreapiassessment.limiter;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import com.chiloanee.bookstoreapiassessment.exception.ServiceOverloadedException;
+
+
+/**
+ * Admits the current {@code BookService} call through the
+ * {@link AdaptiveConcurrencyLimiter} when it first checks out a connection.
+ * A rejected call fails at once instead of queueing in the pool; the
+ * {@link ServiceOverloadedException} travels as the cause of the
+ * {@link SQLTransientConnectionException} the pool itself would throw.
+ * Connections requested outside a service call are not limited.
+ */
+public class AdmissionControlledDataSource extends DelegatingDataSource {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final long retryAfterSeconds;
+
+    public AdmissionControlledDataSource(DataSource target, AdaptiveConcurrencyLimiter limiter, long retryAfterSeconds) {
+        super(target);
+        this.limiter = limiter;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        admit();
+        return super.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        admit();
+        return super.getConnection(username, password);
+    }
+
+    private void admit() throws SQLException {
+        LimiterAdmission admission = LimiterAdmission.current();
+        if (admission == null || admission.isAdmitted()) {
+            return;
+        }
+        if (!limiter.tryAcquire()) {
+            String message = String.format("Too many concurrent database calls (limit %d), retry shortly", limiter.getLimit());
+            throw new SQLTransientConnectionException(message,
+                    new ServiceOverloadedException(message, retryAfterSeconds));
+        }
+        admission.admit();
+    }
+}
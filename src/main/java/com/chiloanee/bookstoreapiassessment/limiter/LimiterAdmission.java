@@ -0,0 +1,64 @@
+package com.chiloanee.bookstoreapiassessment.limiter;
+
+
+/**
+ * Tracks, for the {@code BookService} call running on the current thread,
+ * whether it has been admitted by the {@link AdaptiveConcurrencyLimiter}.
+ * Admission is deferred to the first connection the call checks out, so
+ * calls answered from a cache never take a slot.
+ */
+public final class LimiterAdmission implements AutoCloseable {
+
+    private static final ThreadLocal<LimiterAdmission> CURRENT = new ThreadLocal<>();
+
+    private final LimiterAdmission outer;
+    private long admittedAtNanos;
+    private boolean admitted;
+
+    private LimiterAdmission(LimiterAdmission outer) {
+        this.outer = outer;
+    }
+
+    /** Opens an admission scope for a service call on the current thread. */
+    public static LimiterAdmission open() {
+        LimiterAdmission admission = new LimiterAdmission(CURRENT.get());
+        CURRENT.set(admission);
+        return admission;
+    }
+
+    /** The innermost open scope on the current thread, or {@code null}. */
+    public static LimiterAdmission current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Whether this call, or a service call it is nested in, already holds a
+     * slot.
+     */
+    public boolean isAdmitted() {
+        return admitted || (outer != null && outer.isAdmitted());
+    }
+
+    public void admit() {
+        admitted = true;
+        admittedAtNanos = System.nanoTime();
+    }
+
+    /** Whether this scope itself took the slot and so must release it. */
+    public boolean holdsSlot() {
+        return admitted;
+    }
+
+    public long getAdmittedAtNanos() {
+        return admittedAtNanos;
+    }
+
+    @Override
+    public void close() {
+        if (outer == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(outer);
+        }
+    }
+}
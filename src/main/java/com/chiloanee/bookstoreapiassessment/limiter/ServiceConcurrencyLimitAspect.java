@@ -0,0 +1,58 @@
+package com.chiloanee.bookstoreapiassessment.limiter;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import com.chiloanee.bookstoreapiassessment.exception.ServiceOverloadedException;
+
+
+/**
+ * Puts {@code BookService} calls under the {@link AdaptiveConcurrencyLimiter}.
+ * <p>
+ * The call only opens a {@link LimiterAdmission}; the
+ * {@link AdmissionControlledDataSource} takes the slot when the call first
+ * asks for a connection, and the time from there to the end of the call,
+ * pool wait included, is fed back as the latency sample. Cache hits never
+ * reach the database and so are neither limited nor sampled. Exports, bulk
+ * inserts and dummy-data generation run for seconds or minutes and are left
+ * out, as are queued creates, which are bounded by their own queue. Runs
+ * outside the transaction advice so that a rejection surfaces as
+ * {@link ServiceOverloadedException} rather than a failed transaction begin.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServiceConcurrencyLimitAspect {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public ServiceConcurrencyLimitAspect(AdaptiveConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Around("execution(* com.chiloanee.bookstoreapiassessment.service.BookService.*(..))"
+            + " && !execution(* com.chiloanee.bookstoreapiassessment.service.BookService.createBookAsync(..))"
+            + " && !execution(* com.chiloanee.bookstoreapiassessment.service.BookService.exportBooks(..))"
+            + " && !execution(* com.chiloanee.bookstoreapiassessment.service.BookService.bulkCreateBooks(..))"
+            + " && !execution(* com.chiloanee.bookstoreapiassessment.service.BookService.generateDummyBooks(..))")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        LimiterAdmission admission = LimiterAdmission.open();
+        try {
+            return joinPoint.proceed();
+        } catch (RuntimeException e) {
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof ServiceOverloadedException overloaded) {
+                    throw overloaded;
+                }
+            }
+            throw e;
+        } finally {
+            admission.close();
+            if (admission.holdsSlot()) {
+                limiter.release(System.nanoTime() - admission.getAdmittedAtNanos(), true);
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.chiloanee.bookstoreapiassessment.logging;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.chiloanee.bookstoreapiassessment.datasource.StatementMetricsDataSource;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+
+/**
+ * Writes one structured event per request to the {@value #LOGGER_NAME}
+ * logger, which {@code logback-spring.xml} routes through a
+ * {@link RingBufferAppender}.
+ * <p>
+ * Successful requests are sampled at {@code sampleRate}; failed (4xx/5xx)
+ * and slow requests are always logged. Asynchronous requests, such as
+ * exports, are logged once: when they time out or fail, with an
+ * {@code asyncOutcome} of {@code timeout} or {@code error}, or otherwise when
+ * they complete.
+ */
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    public static final String LOGGER_NAME = "bookstore.access";
+
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger(LOGGER_NAME);
+
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+
+    public AccessLogFilter(double sampleRate, Duration slowThreshold) {
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!ACCESS_LOG.isInfoEnabled()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        long start = System.nanoTime();
+        StatementMetricsDataSource.Recording statements = StatementMetricsDataSource.current();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                AtomicBoolean logged = new AtomicBoolean();
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        if (logged.compareAndSet(false, true)) {
+                            log(request, response, start, statements, null);
+                        }
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        if (logged.compareAndSet(false, true)) {
+                            log(request, response, start, statements, "timeout");
+                        }
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        if (logged.compareAndSet(false, true)) {
+                            log(request, response, start, statements, "error");
+                        }
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                log(request, response, start, statements, null);
+            }
+        }
+    }
+
+    private void log(HttpServletRequest request, HttpServletResponse response, long start,
+                     StatementMetricsDataSource.Recording statements, String asyncFailure) {
+        long elapsed = System.nanoTime() - start;
+        int status = response.getStatus();
+        if (asyncFailure == null && status < 400 && elapsed < slowThresholdNanos && !sampled()) {
+            return;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        LoggingEventBuilder event = ACCESS_LOG.atInfo()
+                .addKeyValue("method", request.getMethod())
+                .addKeyValue("uri", pattern != null ? pattern : "UNKNOWN")
+                .addKeyValue("path", request.getRequestURI())
+                .addKeyValue("status", status)
+                .addKeyValue("durationMicros", elapsed / 1_000)
+                .addKeyValue("jdbcStatements", statements != null ? statements.getStatements() : 0)
+                .addKeyValue("jdbcMicros", statements != null ? statements.getNanos() / 1_000 : 0);
+        if (asyncFailure != null) {
+            event = event.addKeyValue("asyncOutcome", asyncFailure);
+        }
+        event.log();
+    }
+
+    private boolean sampled() {
+        return sampleRate >= 1.0 || (sampleRate > 0.0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+}
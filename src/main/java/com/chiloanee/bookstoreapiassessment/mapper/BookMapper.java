@@ -25,6 +25,7 @@ public class BookMapper {
         dto.setTitle(book.getTitle());
         dto.setAuthor(book.getAuthor());
         dto.setIsbn(book.getIsbn());
+        dto.setVersion(book.getVersion());
         return dto;
     }
     
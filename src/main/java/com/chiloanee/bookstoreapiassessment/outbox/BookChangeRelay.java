@@ -0,0 +1,533 @@
+package com.chiloanee.bookstoreapiassessment.outbox;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.chiloanee.bookstoreapiassessment.dto.BookChangeDto;
+import com.chiloanee.bookstoreapiassessment.event.BookChangedEvent;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Publishes the {@code book_changes} outbox, in order, to every
+ * {@link BookChangeSink} bean, to Server-Sent Events subscribers and to
+ * in-process listeners.
+ * <p>
+ * A single thread polls the outbox. Ids are assigned when a transaction
+ * writes its changes, just before it commits, so a concurrent transaction
+ * can commit a lower id after a higher one is visible. The relay therefore
+ * only publishes up to a watermark below which every id is committed. An id
+ * still missing after {@code gap-timeout} no longer holds the watermark back
+ * but is looked up again on every poll for {@code late-commit-window}; if it
+ * commits in that time it is delivered late, out of id order, to the
+ * consumers already past it, and otherwise it is treated as rolled back.
+ * Sinks record their late deliveries in {@code book_change_late_deliveries}
+ * so that only one instance makes each. A subscriber that is disconnected
+ * while a late change is delivered does not get it on resuming.
+ * <p>
+ * Events for an SSE subscriber are buffered and sent on a thread of its own,
+ * so a slow client only delays itself. One with more than
+ * {@code subscriber-buffer} unsent events is disconnected and can resume from
+ * its {@code Last-Event-ID}.
+ * <p>
+ * Each consumer has its own offset: sinks in {@code book_change_offsets},
+ * updated under a row lock so that several instances deliver each batch
+ * once, and subscribers and listeners in memory, starting from their
+ * {@code Last-Event-ID} or from the changes made after they registered.
+ * Consumers at the same offset share one batched read. Changes older than
+ * {@code retention} are deleted, delivered or not.
+ */
+@Component
+@Slf4j
+public class BookChangeRelay implements MeterBinder {
+
+    private static final String SELECT_CHANGES = "SELECT id, book_id, change_type, title, author, isbn, book_version, "
+            + "changed_at, previous_title, previous_author, origin FROM book_changes WHERE id > ? AND id <= ? ORDER BY id LIMIT ?";
+    private static final int MAX_SKIPPED_IDS = 10_000;
+    private static final int LOOKUP_CHUNK = 500;
+    private static final String SELECT_CHANGES_BY_ID = "SELECT id, book_id, change_type, title, author, isbn, "
+            + "book_version, changed_at, previous_title, previous_author, origin FROM book_changes WHERE id IN (%s) ORDER BY id";
+    private static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(15);
+    private static final Duration PRUNE_INTERVAL = Duration.ofHours(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<BookChangeSink> sinkProvider;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final long gapTimeoutNanos;
+    private final long lateCommitWindowNanos;
+    private final Duration retention;
+    private final Duration subscriberTimeout;
+    private final int subscriberBuffer;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder deliveredLate = new LongAdder();
+    /** Ids skipped past at a gap, with when, looked up again until they commit or expire; relay thread only. */
+    private final NavigableMap<Long, Long> skipped = new TreeMap<>();
+    private final ExecutorService senders = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "book-change-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScheduledExecutorService poller;
+    private List<BookChangeSink> sinks = List.of();
+    private volatile long watermark;
+    private long gapSeenNanos = -1;
+    private long lastPruneNanos;
+
+    public BookChangeRelay(JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           ObjectProvider<BookChangeSink> sinkProvider,
+                           @Value("${bookstore.outbox.batch-size:500}") int batchSize,
+                           @Value("${bookstore.outbox.poll-interval:200ms}") Duration pollInterval,
+                           @Value("${bookstore.outbox.gap-timeout:2s}") Duration gapTimeout,
+                           @Value("${bookstore.outbox.late-commit-window:10m}") Duration lateCommitWindow,
+                           @Value("${bookstore.outbox.retention:7d}") Duration retention,
+                           @Value("${bookstore.outbox.subscriber-timeout:30m}") Duration subscriberTimeout,
+                           @Value("${bookstore.outbox.subscriber-buffer:10000}") int subscriberBuffer) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sinkProvider = sinkProvider;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.gapTimeoutNanos = gapTimeout.toNanos();
+        this.lateCommitWindowNanos = lateCommitWindow.toNanos();
+        this.retention = retention;
+        this.subscriberTimeout = subscriberTimeout;
+        this.subscriberBuffer = subscriberBuffer;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Long last = jdbcTemplate.queryForObject("SELECT MAX(id) FROM book_changes", Long.class);
+        watermark = last == null ? 0 : last;
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.offset < 0) {
+                subscriber.offset = watermark;
+            }
+        }
+        lastPruneNanos = System.nanoTime() - PRUNE_INTERVAL.toNanos();
+        sinks = sinkProvider.orderedStream().toList();
+        for (BookChangeSink sink : sinks) {
+            try {
+                jdbcTemplate.update("INSERT INTO book_change_offsets (consumer, last_change_id) VALUES (?, ?)",
+                        sink.name(), watermark);
+            } catch (DuplicateKeyException e) {
+                // resumes from its stored offset
+            }
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "book-change-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::poll, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Relaying book changes after change {} to {} sinks", watermark, sinks.size());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+        senders.shutdownNow();
+        subscribers.stream()
+                .filter(subscriber -> subscriber.stream != null)
+                .forEach(subscriber -> subscriber.stream.emitter.complete());
+    }
+
+    /**
+     * Streams the changes after {@code after} and every later one; without
+     * an offset the stream starts with the next change.
+     */
+    public SseEmitter subscribe(Long after) {
+        SseEmitter emitter = new SseEmitter(subscriberTimeout.toMillis());
+        ClientStream stream = new ClientStream(emitter);
+        Subscriber subscriber = new Subscriber(stream, stream::send, after == null ? watermark : after);
+        stream.subscriber = subscriber;
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    /**
+     * Passes each later batch of changes to {@code listener} on the relay
+     * thread; a listener registered before startup gets the changes made
+     * after startup. Exceptions are logged and the changes skipped.
+     */
+    public void listen(Consumer<List<BookChangeDto>> listener) {
+        subscribers.add(new Subscriber(null, changes -> {
+            try {
+                listener.accept(changes);
+            } catch (RuntimeException e) {
+                log.warn("Book change listener failed on {} changes: {}", changes.size(), e.getMessage());
+            }
+        }, poller == null ? -1 : watermark));
+    }
+
+    private void poll() {
+        try {
+            boolean behind;
+            do {
+                advanceWatermark();
+                behind = false;
+                for (BookChangeSink sink : sinks) {
+                    behind |= relayTo(sink);
+                }
+                behind |= relayToSubscribers();
+            } while (behind);
+            relayLateChanges();
+            sendHeartbeats();
+            pruneIfDue();
+        } catch (RuntimeException e) {
+            log.warn("Relaying book changes failed, retrying: {}", e.getMessage());
+        }
+    }
+
+    private void advanceWatermark() {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM book_changes WHERE id > ? ORDER BY id LIMIT ?", Long.class, watermark, batchSize);
+        long next = watermark;
+        for (long id : ids) {
+            if (id != next + 1) {
+                long now = System.nanoTime();
+                if (gapSeenNanos < 0) {
+                    gapSeenNanos = now;
+                }
+                if (now - gapSeenNanos < gapTimeoutNanos) {
+                    break;
+                }
+                skip(next + 1, id - 1, now);
+            }
+            gapSeenNanos = -1;
+            next = id;
+        }
+        watermark = next;
+    }
+
+    private void skip(long from, long to, long now) {
+        long tracked = Math.max(from, to - (MAX_SKIPPED_IDS - 1));
+        if (tracked > from) {
+            log.warn("Not looking up book changes {} to {} again, the gap is larger than {} ids", from, tracked - 1,
+                    MAX_SKIPPED_IDS);
+        }
+        log.debug("Moving past book changes {} to {}, looking them up again for late commits", from, to);
+        for (long id = tracked; id <= to; id++) {
+            skipped.put(id, now);
+        }
+        while (skipped.size() > MAX_SKIPPED_IDS) {
+            log.warn("Not looking up book change {} again, too many uncommitted ids", skipped.pollFirstEntry().getKey());
+        }
+    }
+
+    /**
+     * Looks up the ids skipped at a gap, and delivers those since committed
+     * to the consumers already past them; the others read them in order.
+     */
+    private void relayLateChanges() {
+        if (skipped.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        skipped.values().removeIf(skippedAt -> now - skippedAt > lateCommitWindowNanos);
+        List<BookChangeDto> late = new ArrayList<>();
+        List<Long> ids = new ArrayList<>(skipped.keySet());
+        for (int from = 0; from < ids.size(); from += LOOKUP_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + LOOKUP_CHUNK));
+            late.addAll(jdbcTemplate.query(SELECT_CHANGES_BY_ID.formatted(String.join(",", Collections.nCopies(
+                    chunk.size(), "?"))), BookChangeRelay::toChange, chunk.toArray()));
+        }
+        if (late.isEmpty()) {
+            return;
+        }
+        late.forEach(change -> skipped.remove(change.getChangeId()));
+        log.debug("Relaying {} book changes committed after the relay moved past them", late.size());
+        for (BookChangeSink sink : sinks) {
+            relayLateTo(sink, late);
+        }
+        for (Subscriber subscriber : subscribers) {
+            long offset = subscriber.offset;
+            List<BookChangeDto> missed = late.stream().filter(change -> change.getChangeId() <= offset).toList();
+            send(subscriber, missed);
+            deliveredLate.add(missed.size());
+        }
+    }
+
+    private void relayLateTo(BookChangeSink sink, List<BookChangeDto> late) {
+        transactionTemplate.executeWithoutResult(status -> {
+            long offset = jdbcTemplate.queryForObject(
+                    "SELECT last_change_id FROM book_change_offsets WHERE consumer = ? FOR UPDATE", Long.class, sink.name());
+            List<BookChangeDto> missed = late.stream().filter(change -> change.getChangeId() <= offset).toList();
+            if (missed.isEmpty()) {
+                return;
+            }
+            Set<Long> alreadyDelivered = new HashSet<>(jdbcTemplate.queryForList(
+                    "SELECT change_id FROM book_change_late_deliveries WHERE consumer = ? AND change_id BETWEEN ? AND ?",
+                    Long.class, sink.name(), missed.get(0).getChangeId(), missed.get(missed.size() - 1).getChangeId()));
+            List<BookChangeDto> undelivered = missed.stream()
+                    .filter(change -> !alreadyDelivered.contains(change.getChangeId()))
+                    .toList();
+            if (undelivered.isEmpty()) {
+                return;
+            }
+            Timestamp now = Timestamp.from(Instant.now());
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO book_change_late_deliveries (consumer, change_id, delivered_at) VALUES (?, ?, ?)",
+                    undelivered.stream().map(change -> new Object[] {sink.name(), change.getChangeId(), now}).toList());
+            sink.publish(undelivered);
+            delivered.add(undelivered.size());
+            deliveredLate.add(undelivered.size());
+        });
+    }
+
+    /** Returns whether the sink is still more than a batch behind. */
+    private boolean relayTo(BookChangeSink sink) {
+        long upTo = watermark;
+        Boolean behind = transactionTemplate.execute(status -> {
+            long offset = jdbcTemplate.queryForObject(
+                    "SELECT last_change_id FROM book_change_offsets WHERE consumer = ? FOR UPDATE", Long.class, sink.name());
+            if (offset >= upTo) {
+                return false;
+            }
+            List<BookChangeDto> changes = readChanges(offset, upTo);
+            if (!changes.isEmpty()) {
+                sink.publish(changes);
+                delivered.add(changes.size());
+            }
+            jdbcTemplate.update("UPDATE book_change_offsets SET last_change_id = ? WHERE consumer = ?",
+                    nextOffset(changes, upTo), sink.name());
+            return changes.size() == batchSize;
+        });
+        return Boolean.TRUE.equals(behind);
+    }
+
+    /** Returns whether any subscriber is still more than a batch behind. */
+    private boolean relayToSubscribers() {
+        long upTo = watermark;
+        Map<Long, List<Subscriber>> byOffset = new LinkedHashMap<>();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.offset >= 0 && subscriber.offset < upTo) {
+                byOffset.computeIfAbsent(subscriber.offset, offset -> new CopyOnWriteArrayList<>()).add(subscriber);
+            }
+        }
+        boolean behind = false;
+        for (Map.Entry<Long, List<Subscriber>> group : byOffset.entrySet()) {
+            List<BookChangeDto> changes = readChanges(group.getKey(), upTo);
+            long next = nextOffset(changes, upTo);
+            for (Subscriber subscriber : group.getValue()) {
+                send(subscriber, changes);
+                subscriber.offset = next;
+            }
+            behind |= changes.size() == batchSize;
+        }
+        return behind;
+    }
+
+    private void send(Subscriber subscriber, List<BookChangeDto> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        try {
+            subscriber.delivery.deliver(changes);
+            subscriber.lastSentNanos = System.nanoTime();
+            delivered.add(changes.size());
+        } catch (IOException | IllegalStateException e) {
+            disconnect(subscriber, e);
+        }
+    }
+
+    private void sendHeartbeats() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.stream != null && now - subscriber.lastSentNanos >= HEARTBEAT_INTERVAL.toNanos()) {
+                try {
+                    subscriber.stream.enqueue(SseEmitter.event().comment("heartbeat"));
+                    subscriber.lastSentNanos = now;
+                } catch (IllegalStateException e) {
+                    disconnect(subscriber, e);
+                }
+            }
+        }
+    }
+
+    private void disconnect(Subscriber subscriber, Exception cause) {
+        subscribers.remove(subscriber);
+        if (subscriber.stream != null) {
+            subscriber.stream.emitter.completeWithError(cause);
+        }
+    }
+
+    private void pruneIfDue() {
+        long now = System.nanoTime();
+        if (now - lastPruneNanos < PRUNE_INTERVAL.toNanos()) {
+            return;
+        }
+        lastPruneNanos = now;
+        int pruned = jdbcTemplate.update("DELETE FROM book_changes WHERE changed_at < ? AND id <= ?",
+                Timestamp.from(Instant.now().minus(retention)), watermark);
+        if (pruned > 0) {
+            log.info("Deleted {} book changes older than {}", pruned, retention);
+        }
+        jdbcTemplate.update("DELETE FROM book_change_late_deliveries WHERE delivered_at < ?",
+                Timestamp.from(Instant.now().minus(retention)));
+    }
+
+    private List<BookChangeDto> readChanges(long after, long upTo) {
+        return jdbcTemplate.query(SELECT_CHANGES, BookChangeRelay::toChange, after, upTo, batchSize);
+    }
+
+    /** Past the last change read, or the whole range when it was read completely, gaps included. */
+    private long nextOffset(List<BookChangeDto> changes, long upTo) {
+        return changes.size() < batchSize ? upTo : changes.get(changes.size() - 1).getChangeId();
+    }
+
+    private static BookChangeDto toChange(ResultSet row, int rowNum) throws SQLException {
+        return new BookChangeDto(
+                row.getLong("id"),
+                row.getLong("book_id"),
+                BookChangedEvent.Type.valueOf(row.getString("change_type")),
+                row.getString("title"),
+                row.getString("author"),
+                row.getString("isbn"),
+                row.getObject("book_version", Long.class),
+                row.getTimestamp("changed_at").toInstant(),
+                row.getString("previous_title"),
+                row.getString("previous_author"),
+                row.getString("origin"));
+    }
+
+    /** Every change at or below this id is committed, or is looked up again for a late commit. */
+    public long getWatermark() {
+        return watermark;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("bookstore.outbox.delivered", delivered, LongAdder::sum)
+                .description("Book changes delivered to sinks and subscribers")
+                .register(registry);
+        FunctionCounter.builder("bookstore.outbox.delivered.late", deliveredLate, LongAdder::sum)
+                .description("Book changes delivered out of order because they committed after the relay moved past them")
+                .register(registry);
+        Gauge.builder("bookstore.outbox.subscribers", subscribers,
+                        list -> list.stream().filter(subscriber -> subscriber.stream != null).count())
+                .description("Open book change streams")
+                .register(registry);
+    }
+
+    @FunctionalInterface
+    private interface Delivery {
+
+        void deliver(List<BookChangeDto> changes) throws IOException;
+    }
+
+    /** An SSE stream or, without one, an in-process listener; a negative offset waits for startup. */
+    private static final class Subscriber {
+
+        private final ClientStream stream;
+        private final Delivery delivery;
+        private volatile long offset;
+        private volatile long lastSentNanos = System.nanoTime();
+
+        private Subscriber(ClientStream stream, Delivery delivery, long offset) {
+            this.stream = stream;
+            this.delivery = delivery;
+            this.offset = offset;
+        }
+    }
+
+    /** Buffers the events of one SSE client and sends them on a sender thread, one task at a time. */
+    private final class ClientStream {
+
+        private final SseEmitter emitter;
+        private final Queue<SseEmitter.SseEventBuilder> buffer = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger buffered = new AtomicInteger();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private Subscriber subscriber;
+
+        private ClientStream(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void send(List<BookChangeDto> changes) {
+            for (BookChangeDto change : changes) {
+                enqueue(SseEmitter.event()
+                        .id(Long.toString(change.getChangeId()))
+                        .name("book-change")
+                        .data(change, MediaType.APPLICATION_JSON));
+            }
+        }
+
+        void enqueue(SseEmitter.SseEventBuilder event) {
+            if (buffered.incrementAndGet() > subscriberBuffer) {
+                buffered.decrementAndGet();
+                throw new IllegalStateException("More than " + subscriberBuffer + " book change events are unsent");
+            }
+            buffer.add(event);
+            if (sending.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                do {
+                    SseEmitter.SseEventBuilder event;
+                    while ((event = buffer.poll()) != null) {
+                        buffered.decrementAndGet();
+                        emitter.send(event);
+                    }
+                    sending.set(false);
+                } while (!buffer.isEmpty() && sending.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException e) {
+                buffer.clear();
+                disconnect(subscriber, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.chiloanee.bookstoreapiassessment.outbox;
+
+import java.util.List;
+
+import com.chiloanee.bookstoreapiassessment.dto.BookChangeDto;
+
+
+/**
+ * A downstream system fed by the {@link BookChangeRelay}, such as a message
+ * broker or another service's API. Declare an implementation as a bean to
+ * have it receive every committed book change in order.
+ * <p>
+ * Delivery is at least once: the relay records the sink's offset under
+ * {@link #name()} only after {@link #publish} returns, and a batch that
+ * throws is sent again on the next poll, so sinks should be idempotent per
+ * {@code changeId}. A new sink starts with the changes made after it was
+ * first seen.
+ */
+public interface BookChangeSink {
+
+    /** Key of the sink's offset in {@code book_change_offsets}; keep it stable across releases. */
+    String name();
+
+    void publish(List<BookChangeDto> changes);
+}
@@ -0,0 +1,111 @@
+package com.chiloanee.bookstoreapiassessment.outbox;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.chiloanee.bookstoreapiassessment.cluster.ClusterInvalidationBus;
+import com.chiloanee.bookstoreapiassessment.event.BookChangedEvent;
+import com.chiloanee.bookstoreapiassessment.repository.BookCounter;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+
+
+/**
+ * Writes every {@link BookChangedEvent} to the {@code book_changes} outbox in
+ * the transaction that made the change, so the outbox holds exactly the
+ * committed changes.
+ * <p>
+ * The events of a transaction are collected on its Hibernate session and
+ * inserted as one JDBC batch when the session completes the transaction:
+ * after its final flush, whose updates and deletes are only reported then,
+ * and before the database commit. A rollback discards them. The same
+ * statement batch adds their number to a random {@code book_counts} slot,
+ * which the {@code CatalogueVersion} sums.
+ * <p>
+ * Each row also records what an update replaced and this node's id, so the
+ * outbox cluster transport can invalidate as narrowly as a local change.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookOutboxWriter {
+
+    private static final String INSERT = "INSERT INTO book_changes "
+            + "(book_id, change_type, title, author, isbn, book_version, changed_at, previous_title, previous_author, "
+            + "origin) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String COUNT_CHANGES = "UPDATE book_counts SET change_count = change_count + ? WHERE slot = ?";
+
+    private final ClusterInvalidationBus clusterInvalidationBus;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final Map<SharedSessionContractImplementor, List<PendingChange>> pending = new ConcurrentHashMap<>();
+
+    @EventListener
+    public void onBookChanging(BookChangedEvent event) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        pending.computeIfAbsent(session, this::register).add(new PendingChange(event, Instant.now()));
+    }
+
+    private List<PendingChange> register(SharedSessionContractImplementor session) {
+        SessionImplementor writer = (SessionImplementor) session;
+        writer.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) this::write);
+        writer.getActionQueue().registerProcess(
+                (AfterTransactionCompletionProcess) (success, completed) -> pending.remove(completed));
+        return new ArrayList<>();
+    }
+
+    private void write(SessionImplementor session) {
+        List<PendingChange> changes = pending.remove(session);
+        if (changes == null || changes.isEmpty()) {
+            return;
+        }
+        session.doWork(connection -> {
+            try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+                for (PendingChange change : changes) {
+                    BookChangedEvent event = change.event();
+                    insert.setLong(1, event.id());
+                    insert.setString(2, event.type().name());
+                    insert.setString(3, event.title());
+                    insert.setString(4, event.author());
+                    insert.setString(5, event.isbn());
+                    if (event.version() == null) {
+                        insert.setNull(6, Types.BIGINT);
+                    } else {
+                        insert.setLong(6, event.version());
+                    }
+                    insert.setTimestamp(7, Timestamp.from(change.changedAt()));
+                    insert.setString(8, event.previousTitle());
+                    insert.setString(9, event.previousAuthor());
+                    insert.setString(10, clusterInvalidationBus.getNodeId());
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            try (PreparedStatement count = connection.prepareStatement(COUNT_CHANGES)) {
+                count.setLong(1, changes.size());
+                count.setInt(2, ThreadLocalRandom.current().nextInt(BookCounter.SLOTS));
+                count.executeUpdate();
+            }
+        });
+    }
+
+    private record PendingChange(BookChangedEvent event, Instant changedAt) {
+    }
+}
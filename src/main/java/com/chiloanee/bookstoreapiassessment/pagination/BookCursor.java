@@ -0,0 +1,51 @@
+package com.chiloanee.bookstoreapiassessment.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.springframework.data.domain.Sort;
+
+import com.chiloanee.bookstoreapiassessment.exception.InvalidPaginationException;
+
+
+/**
+ * Position of the last row of a keyset page. It is handed to clients as an
+ * opaque, URL-safe token and carries the sort it was produced for, so a
+ * cursor cannot silently be replayed against a different ordering.
+ */
+public record BookCursor(KeysetSort sort, Sort.Direction direction, String value, long id) {
+
+    private static final char SEPARATOR = ':';
+
+    public String encode() {
+        String raw = sort.name() + SEPARATOR + direction.name() + SEPARATOR + id + SEPARATOR + (value == null ? "" : value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static BookCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(String.valueOf(SEPARATOR), 4);
+            if (parts.length != 4) {
+                throw new InvalidPaginationException("Malformed cursor");
+            }
+            return new BookCursor(
+                    KeysetSort.valueOf(parts[0]),
+                    Sort.Direction.valueOf(parts[1]),
+                    parts[3],
+                    Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidPaginationException("Malformed cursor");
+        }
+    }
+
+    /**
+     * Checks that the cursor was issued for the ordering the client is asking for now.
+     */
+    public BookCursor requireOrdering(KeysetSort expectedSort, Sort.Direction expectedDirection) {
+        if (sort != expectedSort || direction != expectedDirection) {
+            throw new InvalidPaginationException("Cursor was issued for a different sort order");
+        }
+        return this;
+    }
+}
@@ -0,0 +1,34 @@
+package com.chiloanee.bookstoreapiassessment.pagination;
+
+import com.chiloanee.bookstoreapiassessment.exception.InvalidPaginationException;
+
+
+/**
+ * Columns a keyset page can be ordered by. Each one is paired with {@code id}
+ * as a tiebreaker so that {@code (key, id)} is unique and seekable.
+ */
+public enum KeysetSort {
+    ID("id"),
+    TITLE("title"),
+    AUTHOR("author"),
+    ISBN("isbn");
+
+    private final String property;
+
+    KeysetSort(String property) {
+        this.property = property;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public static KeysetSort fromProperty(String property) {
+        for (KeysetSort sort : values()) {
+            if (sort.property.equalsIgnoreCase(property)) {
+                return sort;
+            }
+        }
+        throw new InvalidPaginationException("Cannot sort by '" + property + "', expected one of id, title, author, isbn");
+    }
+}
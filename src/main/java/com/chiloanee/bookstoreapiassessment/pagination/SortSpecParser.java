@@ -0,0 +1,68 @@
+package com.chiloanee.bookstoreapiassessment.pagination;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.data.domain.Sort;
+
+import com.chiloanee.bookstoreapiassessment.exception.InvalidPaginationException;
+
+
+/**
+ * Turns the {@code sortBy}/{@code sortDir} request parameters into a
+ * {@link Sort} over the {@link KeysetSort} columns only, so an unknown field
+ * is rejected with a 400 before any query is built.
+ * <p>
+ * {@code sortBy} is a comma-separated list of up to {@value #MAX_KEYS} keys,
+ * each optionally suffixed with {@code :asc} or {@code :desc}; keys without a
+ * suffix take {@code sortDir}. Unless {@code id} is listed, it is appended in
+ * the direction of the last key, so the order is total and matches the
+ * {@code (key, id)} indexes; keys after {@code id} could never break a tie
+ * and are dropped. A single key reads its index in order, further keys add
+ * a sort step.
+ */
+public final class SortSpecParser {
+
+    public static final int MAX_KEYS = 3;
+
+    private SortSpecParser() {
+    }
+
+    public static Sort parse(String sortBy, String sortDir) {
+        Sort.Direction defaultDirection = parseDirection(sortDir);
+        String[] terms = sortBy.split(",", -1);
+        if (terms.length > MAX_KEYS) {
+            throw new InvalidPaginationException("Cannot sort by more than " + MAX_KEYS + " fields");
+        }
+
+        List<Sort.Order> orders = new ArrayList<>(terms.length + 1);
+        Set<KeysetSort> keys = EnumSet.noneOf(KeysetSort.class);
+        Sort.Direction direction = defaultDirection;
+        for (String term : terms) {
+            int colon = term.indexOf(':');
+            KeysetSort key = KeysetSort.fromProperty((colon < 0 ? term : term.substring(0, colon)).trim());
+            direction = colon < 0 ? defaultDirection : parseDirection(term.substring(colon + 1).trim());
+            if (!keys.add(key)) {
+                throw new InvalidPaginationException("Cannot sort by '" + key.getProperty() + "' twice");
+            }
+            orders.add(new Sort.Order(direction, key.getProperty()));
+            if (key == KeysetSort.ID) {
+                return Sort.by(orders);
+            }
+        }
+        orders.add(new Sort.Order(direction, KeysetSort.ID.getProperty()));
+        return Sort.by(orders);
+    }
+
+    public static Sort.Direction parseDirection(String sortDir) {
+        if (sortDir.equalsIgnoreCase("asc")) {
+            return Sort.Direction.ASC;
+        }
+        if (sortDir.equalsIgnoreCase("desc")) {
+            return Sort.Direction.DESC;
+        }
+        throw new InvalidPaginationException("Cannot sort in direction '" + sortDir + "', expected asc or desc");
+    }
+}
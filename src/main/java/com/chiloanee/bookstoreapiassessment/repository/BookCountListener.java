@@ -0,0 +1,36 @@
+package com.chiloanee.bookstoreapiassessment.repository;
+
+import org.springframework.beans.factory.ObjectProvider;
+
+import com.chiloanee.bookstoreapiassessment.entity.Book;
+
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreRemove;
+
+
+/**
+ * Reports inserts and deletes of {@link Book} to the {@link BookCounter}.
+ * The pre-callbacks run inside the writing transaction as soon as the entity
+ * is persisted or removed, before the statement itself is flushed, which may
+ * only happen at commit. Like {@code IsbnAssignmentListener}, it is created
+ * while the entity manager factory is being built, so the counter is looked
+ * up on first use.
+ */
+public class BookCountListener {
+
+    private final ObjectProvider<BookCounter> bookCounter;
+
+    public BookCountListener(ObjectProvider<BookCounter> bookCounter) {
+        this.bookCounter = bookCounter;
+    }
+
+    @PrePersist
+    public void onPersist(Book book) {
+        bookCounter.getObject().add(1);
+    }
+
+    @PreRemove
+    public void onRemove(Book book) {
+        bookCounter.getObject().add(-1);
+    }
+}
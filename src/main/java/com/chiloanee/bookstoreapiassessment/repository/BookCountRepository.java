@@ -0,0 +1,28 @@
+package com.chiloanee.bookstoreapiassessment.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.chiloanee.bookstoreapiassessment.entity.BookCount;
+
+
+@Repository
+public interface BookCountRepository extends JpaRepository<BookCount, Integer> {
+    
+
+    @Modifying
+    @Query("UPDATE BookCount c SET c.rowCount = c.rowCount + :delta WHERE c.slot = :slot")
+    int addToSlot(@Param("slot") int slot, @Param("delta") long delta);
+    
+
+    @Query("SELECT COALESCE(SUM(c.rowCount), 0) FROM BookCount c")
+    long total();
+    
+
+    @Query("SELECT new com.chiloanee.bookstoreapiassessment.repository.CatalogueVersion(SUM(c.rowCount), SUM(c.changeCount)) " +
+           "FROM BookCount c")
+    CatalogueVersion catalogueVersion();
+}
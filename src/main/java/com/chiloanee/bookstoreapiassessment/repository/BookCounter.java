@@ -0,0 +1,75 @@
+package com.chiloanee.bookstoreapiassessment.repository;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.RequiredArgsConstructor;
+
+
+/**
+ * Maintains the number of books in {@code book_counts}, so unfiltered totals
+ * are a sum over {@value #SLOTS} rows instead of a {@code COUNT(*)} scan.
+ * The same rows count the committed changes, which {@code BookOutboxWriter}
+ * adds to, so the {@link CatalogueVersion} is read the same way.
+ * <p>
+ * {@link BookCountListener} reports every insert and delete, whichever path
+ * made it, and the net change of a transaction is applied as one update to a
+ * random slot just before it commits. A bulk chunk of thousands of rows
+ * therefore costs a single extra statement, and the count commits or rolls
+ * back together with the rows it describes. Rows written to {@code books}
+ * outside the application are not counted.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookCounter {
+
+    /** Rows in {@code book_counts}, created by the V3 migration. */
+    public static final int SLOTS = 16;
+
+    private final BookCountRepository bookCountRepository;
+
+    public long total() {
+        return bookCountRepository.total();
+    }
+
+    public CatalogueVersion catalogueVersion() {
+        return bookCountRepository.catalogueVersion();
+    }
+
+    /**
+     * Adds {@code delta} to the count when the current transaction commits;
+     * outside a transaction nothing can be written, so there is nothing to count.
+     */
+    void add(long delta) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingDelta().delta += delta;
+        }
+    }
+
+    /** The delta of the current transaction; a suspended outer one keeps its own. */
+    private PendingDelta pendingDelta() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingDelta pending) {
+                return pending;
+            }
+        }
+        PendingDelta pending = new PendingDelta();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private final class PendingDelta implements TransactionSynchronization {
+
+        private long delta;
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (delta != 0) {
+                bookCountRepository.addToSlot(ThreadLocalRandom.current().nextInt(SLOTS), delta);
+            }
+        }
+    }
+}
@@ -1,29 +1,87 @@
 package com.chiloanee.bookstoreapiassessment.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.chiloanee.bookstoreapiassessment.dto.BookResponseDto;
 import com.chiloanee.bookstoreapiassessment.entity.Book;
+import com.chiloanee.bookstoreapiassessment.search.BookSearchDocument;
 
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
     
 
     Optional<Book> findByIsbn(String isbn);
     
 
+    @Query("SELECT b.version FROM Book b WHERE b.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+    
+
+    // Read-only projections: rows are read straight into BookResponseDto, so no entity is
+    // hydrated, no persistence-context snapshot is taken and no mapper copy is made.
+    @Query("SELECT new com.chiloanee.bookstoreapiassessment.dto.BookResponseDto(b.id, b.title, b.author, b.isbn, b.version) " +
+           "FROM Book b WHERE b.id IN :ids")
+    List<BookResponseDto> findResponsesByIdIn(@Param("ids") Collection<Long> ids);
+    
+
+    // No count query: the total comes from BookCounter
+    @Query("SELECT new com.chiloanee.bookstoreapiassessment.dto.BookResponseDto(b.id, b.title, b.author, b.isbn, b.version) " +
+           "FROM Book b")
+    List<BookResponseDto> findAllResponses(Pageable pageable);
+    
+
+    // Filters match literally: % and _ in them are escaped rather than taken as LIKE wildcards
+    @Query(value = "SELECT new com.chiloanee.bookstoreapiassessment.dto.BookResponseDto(b.id, b.title, b.author, b.isbn, b.version) " +
+                   "FROM Book b WHERE " +
+                   "(:title IS NULL OR LOWER(b.title) LIKE LOWER(CONCAT('%', :#{escape(#title ?: '')}, '%')) ESCAPE :#{escapeCharacter()}) AND " +
+                   "(:author IS NULL OR LOWER(b.author) LIKE LOWER(CONCAT('%', :#{escape(#author ?: '')}, '%')) ESCAPE :#{escapeCharacter()})",
+           countQuery = "SELECT COUNT(b) FROM Book b WHERE " +
+                        "(:title IS NULL OR LOWER(b.title) LIKE LOWER(CONCAT('%', :#{escape(#title ?: '')}, '%')) ESCAPE :#{escapeCharacter()}) AND " +
+                        "(:author IS NULL OR LOWER(b.author) LIKE LOWER(CONCAT('%', :#{escape(#author ?: '')}, '%')) ESCAPE :#{escapeCharacter()})")
+    Page<BookResponseDto> findResponsesByTitleAndAuthor(
+            @Param("title") String title,
+            @Param("author") String author,
+            Pageable pageable);
+    
+
+    // Reads one row past the page to tell whether another follows, instead of counting
+    @Query("SELECT new com.chiloanee.bookstoreapiassessment.dto.BookResponseDto(b.id, b.title, b.author, b.isbn, b.version) " +
+           "FROM Book b WHERE " +
+           "(:title IS NULL OR LOWER(b.title) LIKE LOWER(CONCAT('%', :#{escape(#title ?: '')}, '%')) ESCAPE :#{escapeCharacter()}) AND " +
+           "(:author IS NULL OR LOWER(b.author) LIKE LOWER(CONCAT('%', :#{escape(#author ?: '')}, '%')) ESCAPE :#{escapeCharacter()})")
+    Slice<BookResponseDto> findResponseSliceByTitleAndAuthor(
+            @Param("title") String title,
+            @Param("author") String author,
+            Pageable pageable);
+    
+
     @Query("SELECT b FROM Book b WHERE " +
-           "(:title IS NULL OR LOWER(b.title) LIKE LOWER(CONCAT('%', :title, '%'))) AND " +
-           "(:author IS NULL OR LOWER(b.author) LIKE LOWER(CONCAT('%', :author, '%')))")
+           "(:title IS NULL OR LOWER(b.title) LIKE LOWER(CONCAT('%', :#{escape(#title ?: '')}, '%')) ESCAPE :#{escapeCharacter()}) AND " +
+           "(:author IS NULL OR LOWER(b.author) LIKE LOWER(CONCAT('%', :#{escape(#author ?: '')}, '%')) ESCAPE :#{escapeCharacter()})")
     Page<Book> findByTitleContainingIgnoreCaseOrAuthorContainingIgnoreCase(
             @Param("title") String title, 
             @Param("author") String author, 
             Pageable pageable);
+    
+
+    @Query("SELECT COUNT(b) FROM Book b WHERE " +
+           "(:title IS NULL OR LOWER(b.title) LIKE LOWER(CONCAT('%', :#{escape(#title ?: '')}, '%')) ESCAPE :#{escapeCharacter()}) AND " +
+           "(:author IS NULL OR LOWER(b.author) LIKE LOWER(CONCAT('%', :#{escape(#author ?: '')}, '%')) ESCAPE :#{escapeCharacter()})")
+    long countByTitleAndAuthor(@Param("title") String title, @Param("author") String author);
+    
+
+    @Query("SELECT new com.chiloanee.bookstoreapiassessment.search.BookSearchDocument(b.id, b.title, b.author) " +
+           "FROM Book b WHERE b.id > :afterId ORDER BY b.id")
+    List<BookSearchDocument> findSearchDocuments(@Param("afterId") Long afterId, Pageable pageable);
 }
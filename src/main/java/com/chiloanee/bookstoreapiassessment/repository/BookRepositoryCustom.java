@@ -0,0 +1,29 @@
+package com.chiloanee.bookstoreapiassessment.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Sort;
+
+import com.chiloanee.bookstoreapiassessment.dto.BookResponseDto;
+import com.chiloanee.bookstoreapiassessment.pagination.BookCursor;
+import com.chiloanee.bookstoreapiassessment.pagination.KeysetSort;
+
+
+public interface BookRepositoryCustom {
+    
+    /**
+     * Seeks to the row after {@code after} in {@code (sort, id)} order and reads
+     * at most {@code limit} rows, without an OFFSET scan or a COUNT query.
+     * {@code title} and {@code author} are optional case-insensitive substring filters.
+     * Rows are projected straight into DTOs.
+     */
+    List<BookResponseDto> findKeysetPage(String title, String author, KeysetSort sort, Sort.Direction direction,
+                                         BookCursor after, int limit);
+    
+    /**
+     * Counts the books matching the optional {@code title} and {@code author}
+     * filters, but stops at {@code limit}: the database reads matching ids
+     * only until it has found that many.
+     */
+    long countMatchesUpTo(String title, String author, int limit);
+}
@@ -0,0 +1,107 @@
+package com.chiloanee.bookstoreapiassessment.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
+
+import com.chiloanee.bookstoreapiassessment.dto.BookResponseDto;
+import com.chiloanee.bookstoreapiassessment.entity.Book;
+import com.chiloanee.bookstoreapiassessment.pagination.BookCursor;
+import com.chiloanee.bookstoreapiassessment.pagination.KeysetSort;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+    
+    private static final EscapeCharacter ESCAPE = EscapeCharacter.DEFAULT;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public List<BookResponseDto> findKeysetPage(String title, String author, KeysetSort sort, Sort.Direction direction,
+                                                BookCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookResponseDto> query = cb.createQuery(BookResponseDto.class);
+        Root<Book> book = query.from(Book.class);
+        
+        List<Predicate> predicates = filters(cb, book, title, author);
+        if (after != null) {
+            predicates.add(seekPredicate(cb, book, sort, direction, after));
+        }
+        
+        Path<Long> id = book.get("id");
+        if (sort == KeysetSort.ID) {
+            query.orderBy(direction.isAscending() ? cb.asc(id) : cb.desc(id));
+        } else {
+            Path<String> key = book.get(sort.getProperty());
+            query.orderBy(direction.isAscending()
+                    ? List.of(cb.asc(key), cb.asc(id))
+                    : List.of(cb.desc(key), cb.desc(id)));
+        }
+        
+        query.select(cb.construct(BookResponseDto.class,
+                        book.get("id"), book.get("title"), book.get("author"), book.get("isbn"), book.get("version")))
+                .where(predicates.toArray(new Predicate[0]));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+    
+    @Override
+    public long countMatchesUpTo(String title, String author, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Book> book = query.from(Book.class);
+        query.select(book.get("id")).where(filters(cb, book, title, author).toArray(new Predicate[0]));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList()
+                .size();
+    }
+    
+    private static List<Predicate> filters(CriteriaBuilder cb, Root<Book> book, String title, String author) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (title != null) {
+            predicates.add(cb.like(cb.lower(book.get("title")), contains(title), ESCAPE.getEscapeCharacter()));
+        }
+        if (author != null) {
+            predicates.add(cb.like(cb.lower(book.get("author")), contains(author), ESCAPE.getEscapeCharacter()));
+        }
+        return predicates;
+    }
+    
+    /** A LIKE pattern matching {@code filter} literally, ignoring case, as the repository's queries do. */
+    private static String contains(String filter) {
+        return "%" + ESCAPE.escape(filter.toLowerCase(Locale.ROOT)) + "%";
+    }
+    
+    /**
+     * Expands {@code (key, id) > (:key, :id)} into
+     * {@code key > :key OR (key = :key AND id > :id)}: JPQL has no row-value
+     * comparison, and the expanded form is still a range on a {@code (key, id)} index.
+     */
+    private Predicate seekPredicate(CriteriaBuilder cb, Root<Book> book, KeysetSort sort,
+                                    Sort.Direction direction, BookCursor after) {
+        Path<Long> id = book.get("id");
+        Predicate idAfter = direction.isAscending() ? cb.greaterThan(id, after.id()) : cb.lessThan(id, after.id());
+        if (sort == KeysetSort.ID) {
+            return idAfter;
+        }
+        Path<String> key = book.get(sort.getProperty());
+        Predicate keyAfter = direction.isAscending()
+                ? cb.greaterThan(key, after.value())
+                : cb.lessThan(key, after.value());
+        return cb.or(keyAfter, cb.and(cb.equal(key, after.value()), idAfter));
+    }
+}
@@ -0,0 +1,20 @@
+package com.chiloanee.bookstoreapiassessment.repository;
+
+
+/**
+ * Fingerprint of the whole catalogue, used as the ETag of list and search
+ * responses: the maintained book count and the number of committed changes,
+ * both read from {@code book_counts}. Every insert, update and delete raises
+ * {@code changes}, in whatever order transactions commit, so no write leaves
+ * the fingerprint unchanged.
+ */
+public record CatalogueVersion(long count, long changes) {
+
+    public CatalogueVersion(Long count, Long changes) {
+        this(count == null ? 0 : count, changes == null ? 0 : changes);
+    }
+
+    public String toETag() {
+        return "W/\"" + count + "-" + changes + "\"";
+    }
+}
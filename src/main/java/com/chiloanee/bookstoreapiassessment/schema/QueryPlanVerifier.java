@@ -0,0 +1,169 @@
+package com.chiloanee.bookstoreapiassessment.schema;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import com.chiloanee.bookstoreapiassessment.pagination.KeysetSort;
+
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Checks at startup that the database plans the API's indexed access paths
+ * without scanning the whole {@code books} table: lookups by id and isbn,
+ * and the first and following keyset pages for every sort key and direction.
+ * <p>
+ * Plans are read with {@code EXPLAIN} on H2 and MySQL; other databases are
+ * not checked. A full scan is logged as a warning, or fails startup when
+ * {@code bookstore.schema.query-plan-check.fail-on-full-scan} is set.
+ * Substring searches ({@code LOWER(x) LIKE '%q%'}) and the catalogue
+ * fingerprint cannot use an index and are not checked.
+ */
+@Component
+@Slf4j
+public class QueryPlanVerifier {
+
+    private static final String COLUMNS = "SELECT id, title, author, isbn, version FROM books";
+    private static final int PAGE_ROWS = 21;
+
+    private final DataSource dataSource;
+    private final boolean enabled;
+    private final boolean failOnFullScan;
+
+    public QueryPlanVerifier(DataSource dataSource,
+                             @Value("${bookstore.schema.query-plan-check.enabled:true}") boolean enabled,
+                             @Value("${bookstore.schema.query-plan-check.fail-on-full-scan:false}") boolean failOnFullScan) {
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+        this.failOnFullScan = failOnFullScan;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        List<String> fullScans = verify();
+        if (!fullScans.isEmpty() && failOnFullScan) {
+            throw new IllegalStateException("Query plans scan the whole books table for: " + String.join(", ", fullScans));
+        }
+    }
+
+    /** Returns the names of the checked queries whose plan scans the whole table. */
+    public List<String> verify() {
+        List<String> fullScans = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            String product = connection.getMetaData().getDatabaseProductName();
+            PlanDialect dialect = PlanDialect.of(product);
+            if (dialect == null) {
+                log.info("Query plans are not checked on {}", product);
+                return fullScans;
+            }
+            Map<String, String> queries = checkedQueries();
+            for (Map.Entry<String, String> query : queries.entrySet()) {
+                try (Statement statement = connection.createStatement();
+                     ResultSet plan = statement.executeQuery("EXPLAIN " + query.getValue())) {
+                    StringBuilder description = new StringBuilder();
+                    boolean fullScan = false;
+                    while (plan.next()) {
+                        fullScan |= dialect.scansTable(plan);
+                        description.append(describe(plan));
+                    }
+                    if (fullScan) {
+                        log.warn("Query plan for {} scans the whole books table: {}", query.getKey(), description);
+                        fullScans.add(query.getKey());
+                    }
+                }
+            }
+            log.info("Checked {} query plans, {} scan the whole books table", queries.size(), fullScans.size());
+        } catch (SQLException e) {
+            log.warn("Could not check query plans: {}", e.getMessage());
+        }
+        return fullScans;
+    }
+
+    /** The queries to explain, by name, with literal parameters. */
+    static Map<String, String> checkedQueries() {
+        Map<String, String> queries = new LinkedHashMap<>();
+        queries.put("book by id", COLUMNS + " WHERE id = 1");
+        queries.put("book by isbn", COLUMNS + " WHERE isbn = '9780000000000'");
+        for (KeysetSort sort : KeysetSort.values()) {
+            for (Sort.Direction direction : Sort.Direction.values()) {
+                String name = "keyset page by " + sort.getProperty() + " " + direction.name().toLowerCase(Locale.ROOT);
+                queries.put(name, COLUMNS + orderBy(sort, direction));
+                queries.put(name + " after a cursor", COLUMNS + " WHERE " + seek(sort, direction) + orderBy(sort, direction));
+            }
+        }
+        return queries;
+    }
+
+    /** Same shape as the seek predicate of {@code BookRepositoryCustomImpl}. */
+    private static String seek(KeysetSort sort, Sort.Direction direction) {
+        String comparison = direction.isAscending() ? " > " : " < ";
+        String idAfter = "id" + comparison + "1";
+        if (sort == KeysetSort.ID) {
+            return idAfter;
+        }
+        String key = sort.getProperty();
+        return key + comparison + "'m' OR (" + key + " = 'm' AND " + idAfter + ")";
+    }
+
+    private static String orderBy(KeysetSort sort, Sort.Direction direction) {
+        String order = direction.name();
+        String keys = sort == KeysetSort.ID ? "id " + order : sort.getProperty() + " " + order + ", id " + order;
+        return " ORDER BY " + keys + " LIMIT " + PAGE_ROWS;
+    }
+
+    private static String describe(ResultSet plan) throws SQLException {
+        ResultSetMetaData metaData = plan.getMetaData();
+        if (metaData.getColumnCount() == 1) {
+            return plan.getString(1).replaceAll("\\s+", " ");
+        }
+        StringBuilder row = new StringBuilder("[");
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            row.append(i > 1 ? ", " : "").append(metaData.getColumnLabel(i)).append('=').append(plan.getString(i));
+        }
+        return row.append(']').toString();
+    }
+
+    private enum PlanDialect {
+        H2 {
+            @Override
+            boolean scansTable(ResultSet plan) throws SQLException {
+                return plan.getString(1).contains(".tableScan");
+            }
+        },
+        MYSQL {
+            @Override
+            boolean scansTable(ResultSet plan) throws SQLException {
+                return "ALL".equalsIgnoreCase(plan.getString("type"));
+            }
+        };
+
+        abstract boolean scansTable(ResultSet plan) throws SQLException;
+
+        static PlanDialect of(String databaseProductName) {
+            return switch (databaseProductName) {
+                case "H2" -> H2;
+                case "MySQL" -> MYSQL;
+                default -> null;
+            };
+        }
+    }
+}
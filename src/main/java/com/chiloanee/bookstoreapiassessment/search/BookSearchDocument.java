@@ -0,0 +1,8 @@
+package com.chiloanee.bookstoreapiassessment.search;
+
+
+/**
+ * The searchable fields of a book, as loaded by the index bootstrap.
+ */
+public record BookSearchDocument(Long id, String title, String author) {
+}
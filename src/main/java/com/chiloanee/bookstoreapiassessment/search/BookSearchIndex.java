@@ -0,0 +1,326 @@
+package com.chiloanee.bookstoreapiassessment.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.chiloanee.bookstoreapiassessment.event.BookChangedEvent;
+import com.chiloanee.bookstoreapiassessment.repository.BookRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * In-process trigram index over book titles and authors.
+ * <p>
+ * A substring query is answered by intersecting the posting lists of its
+ * trigrams and verifying the surviving candidates against the stored,
+ * lower-cased fields, which gives exactly the semantics of the
+ * {@code LOWER(x) LIKE '%q%'} repository query without scanning the table.
+ * Queries shorter than a trigram fall back to a scan of the in-memory
+ * documents. The index is loaded once at startup and kept current from
+ * committed {@link BookChangedEvent}s, of this node or of others.
+ * <p>
+ * Changes may arrive out of order: a change older than the indexed version
+ * of its book is ignored, and so is any change to a recently deleted book.
+ */
+@Component
+@Slf4j
+public class BookSearchIndex implements MeterBinder {
+
+    private static final int GRAM = 3;
+    private static final int DELETED_IDS_KEPT = 10_000;
+
+    private final BookRepository bookRepository;
+    private final boolean enabled;
+    private final int bootstrapBatchSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, IndexedDocument> documents = new HashMap<>();
+    private final Map<String, PostingList> titleGrams = new HashMap<>();
+    private final Map<String, PostingList> authorGrams = new HashMap<>();
+    private final PostingList allIds = new PostingList();
+    private final Map<Long, Boolean> deletedIds = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+            return size() > DELETED_IDS_KEPT;
+        }
+    };
+
+    private volatile boolean ready;
+    private Set<Long> touchedDuringBuild;
+
+    public BookSearchIndex(BookRepository bookRepository,
+                           @Value("${bookstore.search.index.enabled:true}") boolean enabled,
+                           @Value("${bookstore.search.index.bootstrap-batch-size:10000}") int bootstrapBatchSize) {
+        this.bookRepository = bookRepository;
+        this.enabled = enabled;
+        this.bootstrapBatchSize = bootstrapBatchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrapOnStartup() {
+        if (!enabled) {
+            log.info("Book search index disabled, searches will use the database");
+            return;
+        }
+        Thread loader = new Thread(this::rebuild, "book-search-index-bootstrap");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Loads every book into the index. Changes that arrive while the load is
+     * running win over the (possibly older) rows read by the loader.
+     */
+    public void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            documents.clear();
+            titleGrams.clear();
+            authorGrams.clear();
+            allIds.clear();
+            touchedDuringBuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            long afterId = 0;
+            List<BookSearchDocument> batch;
+            do {
+                batch = bookRepository.findSearchDocuments(afterId, PageRequest.of(0, bootstrapBatchSize));
+                lock.writeLock().lock();
+                try {
+                    for (BookSearchDocument document : batch) {
+                        if (!touchedDuringBuild.contains(document.id())) {
+                            put(document.id(), document.title(), document.author(), null);
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                if (!batch.isEmpty()) {
+                    afterId = batch.get(batch.size() - 1).id();
+                }
+            } while (batch.size() == bootstrapBatchSize);
+        } catch (RuntimeException e) {
+            log.warn("Book search index bootstrap failed, searches will use the database: {}", e.getMessage());
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            touchedDuringBuild = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Book search index loaded {} books in {} ms", size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        if (!enabled || event.id() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (touchedDuringBuild != null) {
+                touchedDuringBuild.add(event.id());
+            }
+            if (event.type() == BookChangedEvent.Type.DELETED) {
+                remove(event.id());
+                deletedIds.put(event.id(), Boolean.TRUE);
+                return;
+            }
+            IndexedDocument existing = documents.get(event.id());
+            if (deletedIds.containsKey(event.id()) || (existing != null && existing.version() != null
+                    && event.version() != null && existing.version() >= event.version())) {
+                return;
+            }
+            put(event.id(), event.title(), event.author(), event.version());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * The index keeps ids in ascending order, so it can only serve pages that
+     * are unsorted or sorted by ascending id.
+     */
+    public boolean supports(Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return false;
+        }
+        Sort sort = pageable.getSort();
+        if (sort.isUnsorted()) {
+            return true;
+        }
+        List<Sort.Order> orders = sort.toList();
+        return orders.size() == 1 && orders.get(0).getProperty().equals("id") && orders.get(0).isAscending();
+    }
+
+    /**
+     * Returns the ids, in ascending order, of every book whose title contains
+     * {@code title} and whose author contains {@code author}, ignoring case.
+     * A {@code null} argument does not restrict the result.
+     */
+    public long[] search(String title, String author) {
+        String titleNeedle = normalize(title);
+        String authorNeedle = normalize(author);
+
+        lock.readLock().lock();
+        try {
+            long[] candidates = null;
+            candidates = narrow(titleGrams, titleNeedle, candidates);
+            candidates = narrow(authorGrams, authorNeedle, candidates);
+            if (candidates == null) {
+                candidates = allIds.toArray();
+            }
+            if (titleNeedle == null && authorNeedle == null) {
+                return candidates;
+            }
+
+            long[] matches = new long[candidates.length];
+            int count = 0;
+            for (long id : candidates) {
+                IndexedDocument document = documents.get(id);
+                if (document != null && document.matches(titleNeedle, authorNeedle)) {
+                    matches[count++] = id;
+                }
+            }
+            return count == matches.length ? matches : Arrays.copyOf(matches, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("bookstore.search.index.size", this, BookSearchIndex::size)
+                .description("Books held in the search index")
+                .register(registry);
+        Gauge.builder("bookstore.search.index.ready", this, index -> index.isReady() ? 1 : 0)
+                .description("Whether searches are served from the index (1) or the database (0)")
+                .register(registry);
+    }
+
+    private long[] narrow(Map<String, PostingList> index, String needle, long[] candidates) {
+        if (needle == null || needle.length() < GRAM) {
+            return candidates;
+        }
+        List<PostingList> postings = new ArrayList<>();
+        for (String gram : grams(needle)) {
+            PostingList posting = index.get(gram);
+            if (posting == null) {
+                return new long[0];
+            }
+            postings.add(posting);
+        }
+        postings.sort(Comparator.comparingInt(PostingList::size));
+
+        int from = 0;
+        if (candidates == null) {
+            candidates = postings.get(0).toArray();
+            from = 1;
+        }
+        for (int i = from; i < postings.size() && candidates.length > 0; i++) {
+            candidates = postings.get(i).retainAll(candidates, candidates.length);
+        }
+        return candidates;
+    }
+
+    private void put(long id, String title, String author, Long version) {
+        remove(id);
+        IndexedDocument document = new IndexedDocument(normalize(title), normalize(author), version);
+        documents.put(id, document);
+        allIds.add(id);
+        addGrams(titleGrams, document.title(), id);
+        addGrams(authorGrams, document.author(), id);
+    }
+
+    private void remove(long id) {
+        IndexedDocument existing = documents.remove(id);
+        if (existing == null) {
+            return;
+        }
+        allIds.remove(id);
+        removeGrams(titleGrams, existing.title(), id);
+        removeGrams(authorGrams, existing.author(), id);
+    }
+
+    private static void addGrams(Map<String, PostingList> index, String value, long id) {
+        for (String gram : grams(value)) {
+            index.computeIfAbsent(gram, key -> new PostingList()).add(id);
+        }
+    }
+
+    private static void removeGrams(Map<String, PostingList> index, String value, long id) {
+        for (String gram : grams(value)) {
+            PostingList posting = index.get(gram);
+            if (posting != null && posting.remove(id) && posting.isEmpty()) {
+                index.remove(gram);
+            }
+        }
+    }
+
+    private static Set<String> grams(String value) {
+        if (value == null || value.length() < GRAM) {
+            return Set.of();
+        }
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private record IndexedDocument(String title, String author, Long version) {
+
+        boolean matches(String titleNeedle, String authorNeedle) {
+            return (titleNeedle == null || (title != null && title.contains(titleNeedle)))
+                    && (authorNeedle == null || (author != null && author.contains(authorNeedle)));
+        }
+    }
+}
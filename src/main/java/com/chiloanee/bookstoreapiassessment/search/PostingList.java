@@ -0,0 +1,96 @@
+package com.chiloanee.bookstoreapiassessment.search;
+
+import java.util.Arrays;
+
+
+/**
+ * Sorted, duplicate-free list of book ids backed by a primitive array.
+ * Ids are allocated in ascending order, so the common insert is an append.
+ */
+final class PostingList {
+
+    private static final long[] EMPTY = new long[0];
+
+    private long[] ids = EMPTY;
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean add(long id) {
+        if (size > 0 && ids[size - 1] < id) {
+            ensureCapacity(size + 1);
+            ids[size++] = id;
+            return true;
+        }
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index >= 0) {
+            return false;
+        }
+        int insertAt = -index - 1;
+        ensureCapacity(size + 1);
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        size++;
+        return true;
+    }
+
+    boolean remove(long id) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    boolean contains(long id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    void clear() {
+        ids = EMPTY;
+        size = 0;
+    }
+
+    long[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * Keeps only the ids of {@code candidates} (sorted) that are also in this list.
+     */
+    long[] retainAll(long[] candidates, int candidateCount) {
+        long[] result = new long[Math.min(candidateCount, size)];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < candidateCount && j < size) {
+            long a = candidates[i];
+            long b = ids[j];
+            if (a == b) {
+                result[k++] = a;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return k == result.length ? result : Arrays.copyOf(result, k);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > ids.length) {
+            int newCapacity = Math.max(required, ids.length < 4 ? 4 : ids.length + (ids.length >> 1));
+            ids = Arrays.copyOf(ids, newCapacity);
+        }
+    }
+}
@@ -1,10 +1,22 @@
 package com.chiloanee.bookstoreapiassessment.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import com.chiloanee.bookstoreapiassessment.dto.BatchGetResultDto;
 import com.chiloanee.bookstoreapiassessment.dto.BookRequestDto;
 import com.chiloanee.bookstoreapiassessment.dto.BookResponseDto;
+import com.chiloanee.bookstoreapiassessment.dto.BulkInsertResultDto;
+import com.chiloanee.bookstoreapiassessment.dto.CursorPageDto;
+import com.chiloanee.bookstoreapiassessment.dto.SlicePageDto;
+import com.chiloanee.bookstoreapiassessment.export.BookExportFormat;
+import com.chiloanee.bookstoreapiassessment.repository.CatalogueVersion;
 
 
 public interface BookService {
@@ -13,12 +25,47 @@ public interface BookService {
     BookResponseDto createBook(BookRequestDto bookRequestDto);
     
 
+    /**
+     * Queues the book to be created in a group commit with other queued
+     * creates; the future completes once it is committed.
+     */
+    CompletableFuture<BookResponseDto> createBookAsync(BookRequestDto bookRequestDto);
+    
+
     BookResponseDto getBookById(Long id);
     
 
+    /**
+     * Looks up many books at once; the result has one item per requested id,
+     * in request order, marking the ids that do not exist.
+     */
+    BatchGetResultDto getBooksByIds(List<Long> ids);
+    
+
+    /**
+     * Current version of a book, answered from the cache or a version-only
+     * query so conditional GETs never hydrate the entity.
+     */
+    long getBookVersion(Long id);
+    
+
+    /**
+     * Fingerprint of the whole catalogue; changes whenever any book is created,
+     * updated or deleted.
+     */
+    CatalogueVersion getCatalogueVersion();
+    
+
     BookResponseDto updateBook(Long id, BookRequestDto bookRequestDto);
     
 
+    /**
+     * Updates the book only if it is still at one of {@code expectedVersions};
+     * {@code null} updates unconditionally.
+     */
+    BookResponseDto updateBook(Long id, BookRequestDto bookRequestDto, Set<Long> expectedVersions);
+    
+
     void deleteBook(Long id);
     
 
@@ -28,5 +75,26 @@ public interface BookService {
     Page<BookResponseDto> searchBooks(String title, String author, Pageable pageable);
     
 
+    /**
+     * Like {@link #searchBooks}, but without an exact count: the total is
+     * capped when counting it would mean scanning every match.
+     */
+    SlicePageDto<BookResponseDto> searchBooksApproximate(String title, String author, Pageable pageable);
+    
+
+    CursorPageDto<BookResponseDto> getBooksAfter(String cursor, int size, String sortBy, String sortDir,
+                                                 boolean includeTotal);
+    
+
+    CursorPageDto<BookResponseDto> searchBooksAfter(String title, String author, String cursor, int size,
+                                                    boolean includeTotal);
+    
+
     String generateDummyBooks(int count);
+    
+
+    BulkInsertResultDto bulkCreateBooks(List<BookRequestDto> bookRequestDtos);
+    
+
+    long exportBooks(BookExportFormat format, OutputStream out) throws IOException;
 }
@@ -0,0 +1,78 @@
+package com.chiloanee.bookstoreapiassessment.service.impl;
+
+import java.util.function.IntFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.chiloanee.bookstoreapiassessment.dto.BulkInsertResultDto;
+import com.chiloanee.bookstoreapiassessment.entity.Book;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Inserts large numbers of books in chunked transactions.
+ * <p>
+ * Each chunk of {@code commit-size} rows is its own transaction, so a failure
+ * only rolls back that chunk and no transaction grows unbounded. Within a
+ * chunk the persistence context is flushed and cleared every JDBC batch, which
+ * keeps memory flat and lets Hibernate send one batched INSERT per flush
+ * (ids come from the pooled {@code books_seq}, not IDENTITY).
+ */
+@Component
+@Slf4j
+public class BookBulkInserter {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    private final TransactionTemplate transactionTemplate;
+    private final int commitSize;
+    private final int flushSize;
+    
+    public BookBulkInserter(PlatformTransactionManager transactionManager,
+                            @Value("${bookstore.bulk.commit-size:5000}") int commitSize,
+                            @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}") int flushSize) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.commitSize = commitSize;
+        this.flushSize = flushSize;
+    }
+    
+    /**
+     * Persists {@code count} books produced by {@code bookFactory}, which is
+     * called with each row's index.
+     */
+    public BulkInsertResultDto insert(int count, IntFunction<Book> bookFactory) {
+        long start = System.nanoTime();
+        int chunks = 0;
+        
+        for (int chunkStart = 0; chunkStart < count; chunkStart += commitSize) {
+            int from = chunkStart;
+            int to = Math.min(count, chunkStart + commitSize);
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = from; i < to; i++) {
+                    entityManager.persist(bookFactory.apply(i));
+                    if ((i - from + 1) % flushSize == 0) {
+                        entityManager.flush();
+                        entityManager.clear();
+                    }
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+            chunks++;
+        }
+        
+        long elapsedNanos = Math.max(1, System.nanoTime() - start);
+        double rowsPerSecond = count * 1_000_000_000.0 / elapsedNanos;
+        log.info("Bulk inserted {} books in {} chunks, {} ms ({} rows/s)",
+                count, chunks, elapsedNanos / 1_000_000, Math.round(rowsPerSecond));
+        
+        return new BulkInsertResultDto(count, chunks, elapsedNanos / 1_000_000, rowsPerSecond);
+    }
+}
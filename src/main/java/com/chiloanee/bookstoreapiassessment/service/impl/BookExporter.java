@@ -0,0 +1,94 @@
+package com.chiloanee.bookstoreapiassessment.service.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.chiloanee.bookstoreapiassessment.dto.BookResponseDto;
+import com.chiloanee.bookstoreapiassessment.export.BookExportFormat;
+import com.chiloanee.bookstoreapiassessment.export.BookExportWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Streams the whole catalogue to an output stream.
+ * <p>
+ * Rows are read through a forward-only {@link ScrollableResults} with a fixed
+ * JDBC fetch size inside one read-only transaction and projected straight into
+ * {@link BookResponseDto}s, so no entity ever enters the persistence context
+ * and the driver holds no more than a fetch-size worth of books. Output is
+ * flushed to the client once per fetch, which keeps memory flat regardless of
+ * catalogue size.
+ */
+@Component
+@Slf4j
+public class BookExporter {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+    
+    public BookExporter(PlatformTransactionManager transactionManager,
+                        ObjectMapper objectMapper,
+                        @Value("${bookstore.export.fetch-size:1000}") int fetchSize) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+    
+    /**
+     * Writes every book in id order to {@code out} and returns the number of
+     * rows written. {@code out} is flushed but not closed.
+     */
+    public long export(BookExportFormat format, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        Long rows;
+        try {
+            rows = transactionTemplate.execute(status -> {
+                try (BookExportWriter writer = format.open(out, objectMapper)) {
+                    return writeAll(writer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        log.debug("Exported {} books as {} in {} ms", rows, format, (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+    
+    private long writeAll(BookExportWriter writer) throws IOException {
+        Session session = entityManager.unwrap(Session.class);
+        long rows = 0;
+        try (ScrollableResults<BookResponseDto> books = session.createQuery(
+                        "SELECT new com.chiloanee.bookstoreapiassessment.dto.BookResponseDto(b.id, b.title, b.author, b.isbn, b.version) " +
+                        "FROM Book b ORDER BY b.id", BookResponseDto.class)
+                .setFetchSize(fetchSize)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (books.next()) {
+                writer.write(books.get());
+                if (++rows % fetchSize == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,92 @@
+package com.chiloanee.bookstoreapiassessment.service.impl;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.chiloanee.bookstoreapiassessment.cache.BookCache;
+import com.chiloanee.bookstoreapiassessment.cache.SingleFlight;
+import com.chiloanee.bookstoreapiassessment.dto.BookResponseDto;
+import com.chiloanee.bookstoreapiassessment.event.BookChangedEvent;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+
+/**
+ * Shares one database read between concurrent identical book lookups and
+ * searches, so a trending book or query costs one query per round of misses
+ * rather than one per caller.
+ * <p>
+ * A book change lets later callers start a fresh read instead of joining one
+ * that may predate it. This runs before {@link BookCache} invalidates, so a
+ * caller that joins an older read has also seen the older cache generation
+ * and the cache discards what it loads.
+ */
+@Component
+public class BookReadCoalescer implements MeterBinder {
+
+    private final boolean enabled;
+    private final SingleFlight<Long, BookResponseDto> books = new SingleFlight<>();
+    private final SingleFlight<SearchKey, Page<BookResponseDto>> searches = new SingleFlight<>();
+
+    public BookReadCoalescer(@Value("${bookstore.single-flight.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public BookResponseDto getBook(Long id, Function<Long, BookResponseDto> loader) {
+        return enabled ? books.execute(id, loader) : loader.apply(id);
+    }
+
+    public Page<BookResponseDto> search(String title, String author, Pageable pageable,
+                                        Supplier<Page<BookResponseDto>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        return searches.execute(new SearchKey(title, author, pageable), key -> loader.get());
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onBookChanging(BookChangedEvent event) {
+        if (event.id() != null) {
+            books.forget(event.id());
+        }
+        searches.forgetAll();
+    }
+
+    @TransactionalEventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onBookChanged(BookChangedEvent event) {
+        onBookChanging(event);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bind(registry, "book", books);
+        bind(registry, "search", searches);
+    }
+
+    private static void bind(MeterRegistry registry, String read, SingleFlight<?, ?> flight) {
+        FunctionCounter.builder("bookstore.single_flight.requests", flight, SingleFlight::ledCount)
+                .tags("read", read, "result", "led")
+                .description("Book reads, by whether they ran their own query or joined an identical one in flight")
+                .register(registry);
+        FunctionCounter.builder("bookstore.single_flight.requests", flight, SingleFlight::sharedCount)
+                .tags("read", read, "result", "shared")
+                .description("Book reads, by whether they ran their own query or joined an identical one in flight")
+                .register(registry);
+    }
+
+    private record SearchKey(String title, String author, Pageable pageable) {
+    }
+}
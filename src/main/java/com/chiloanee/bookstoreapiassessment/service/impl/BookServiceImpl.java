@@ -1,22 +1,55 @@
 package com.chiloanee.bookstoreapiassessment.service.impl;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.chiloanee.bookstoreapiassessment.cache.BookCache;
+import com.chiloanee.bookstoreapiassessment.cache.CatalogueVersionCache;
+import com.chiloanee.bookstoreapiassessment.cache.SearchResultCache;
+import com.chiloanee.bookstoreapiassessment.dto.BatchGetItemDto;
+import com.chiloanee.bookstoreapiassessment.dto.BatchGetResultDto;
 import com.chiloanee.bookstoreapiassessment.dto.BookRequestDto;
 import com.chiloanee.bookstoreapiassessment.dto.BookResponseDto;
+import com.chiloanee.bookstoreapiassessment.dto.BulkInsertResultDto;
+import com.chiloanee.bookstoreapiassessment.dto.CursorPageDto;
+import com.chiloanee.bookstoreapiassessment.dto.SlicePageDto;
 import com.chiloanee.bookstoreapiassessment.entity.Book;
 import com.chiloanee.bookstoreapiassessment.exception.BookNotFoundException;
+import com.chiloanee.bookstoreapiassessment.exception.InvalidPaginationException;
+import com.chiloanee.bookstoreapiassessment.exception.PreconditionFailedException;
+import com.chiloanee.bookstoreapiassessment.export.BookExportFormat;
 import com.chiloanee.bookstoreapiassessment.mapper.BookMapper;
+import com.chiloanee.bookstoreapiassessment.pagination.BookCursor;
+import com.chiloanee.bookstoreapiassessment.pagination.KeysetSort;
+import com.chiloanee.bookstoreapiassessment.pagination.SortSpecParser;
+import com.chiloanee.bookstoreapiassessment.repository.BookCounter;
 import com.chiloanee.bookstoreapiassessment.repository.BookRepository;
+import com.chiloanee.bookstoreapiassessment.repository.CatalogueVersion;
+import com.chiloanee.bookstoreapiassessment.search.BookSearchIndex;
 import com.chiloanee.bookstoreapiassessment.service.BookService;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -25,53 +58,151 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 @Slf4j
 @Transactional
+@Timed(value = "bookstore.service", description = "BookService calls", histogram = true)
 public class BookServiceImpl implements BookService {
     
+    private static final int MAX_KEYSET_PAGE_SIZE = 1000;
+    private static final int APPROXIMATE_COUNT_CAP = 1000;
+    private static final int BATCH_GET_CHUNK_SIZE = 500;
+    
     private final BookRepository bookRepository;
+    private final BookCounter bookCounter;
     private final BookMapper bookMapper;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookCache bookCache;
+    private final BookReadCoalescer bookReadCoalescer;
+    private final CatalogueVersionCache catalogueVersionCache;
+    private final SearchResultCache searchResultCache;
+    private final BookBulkInserter bookBulkInserter;
+    private final GroupCommitBookWriter groupCommitBookWriter;
+    private final BookExporter bookExporter;
     
     @Override
     public BookResponseDto createBook(BookRequestDto bookRequestDto) {
-        log.info("Creating new book with title: {}", bookRequestDto.getTitle());
+        log.debug("Creating new book with title: {}", bookRequestDto.getTitle());
         
         Book book = bookMapper.toEntity(bookRequestDto);
         Book savedBook = bookRepository.save(book);
         
-        log.info("Book created successfully with ID: {} and ISBN: {}", 
+        log.debug("Book created successfully with ID: {} and ISBN: {}", 
                 savedBook.getId(), savedBook.getIsbn());
         
         return bookMapper.toResponseDto(savedBook);
     }
     
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<BookResponseDto> createBookAsync(BookRequestDto bookRequestDto) {
+        log.debug("Queueing new book with title: {}", bookRequestDto.getTitle());
+        
+        return groupCommitBookWriter.submit(bookRequestDto);
+    }
+    
+    /**
+     * Served from {@link BookCache}; only a miss reaches the repository, whose own
+     * read-only transaction is the only one opened, so cache hits never take a connection.
+     * Concurrent misses for the same id share one read through {@link BookReadCoalescer}.
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public BookResponseDto getBookById(Long id) {
-        log.info("Fetching book with ID: {}", id);
+        log.debug("Fetching book with ID: {}", id);
         
+        return bookCache.get(id, key -> bookReadCoalescer.getBook(key, this::loadBook));
+    }
+    
+    private BookResponseDto loadBook(Long id) {
         Book book = bookRepository.findById(id)
                 .orElseThrow(() -> new BookNotFoundException(id));
         
         return bookMapper.toResponseDto(book);
     }
     
+    /**
+     * Cached books come from {@link BookCache}; the misses are read with
+     * IN-lists of up to {@value #BATCH_GET_CHUNK_SIZE} ids, so a full batch
+     * costs at most two queries and a fully cached one none.
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public BatchGetResultDto getBooksByIds(List<Long> ids) {
+        log.debug("Fetching {} books by ID", ids.size());
+        
+        Map<Long, BookResponseDto> booksById = bookCache.getAll(new LinkedHashSet<>(ids), this::loadBooks);
+        
+        List<BatchGetItemDto> items = new ArrayList<>(ids.size());
+        int found = 0;
+        for (Long id : ids) {
+            BookResponseDto book = booksById.get(id);
+            if (book != null) {
+                found++;
+            }
+            items.add(new BatchGetItemDto(id, book != null, book));
+        }
+        return new BatchGetResultDto(items, found, ids.size() - found);
+    }
+    
+    private Map<Long, BookResponseDto> loadBooks(List<Long> ids) {
+        Map<Long, BookResponseDto> books = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += BATCH_GET_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + BATCH_GET_CHUNK_SIZE, ids.size()));
+            for (BookResponseDto book : bookRepository.findResponsesByIdIn(chunk)) {
+                books.put(book.getId(), book);
+            }
+        }
+        return books;
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public long getBookVersion(Long id) {
+        BookResponseDto cached = bookCache.getIfPresent(id);
+        if (cached != null) {
+            return cached.getVersion();
+        }
+        return bookRepository.findVersionById(id)
+                .orElseThrow(() -> new BookNotFoundException(id));
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public CatalogueVersion getCatalogueVersion() {
+        return catalogueVersionCache.get(bookCounter::catalogueVersion);
+    }
+    
     @Override
     public BookResponseDto updateBook(Long id, BookRequestDto bookRequestDto) {
-        log.info("Updating book with ID: {}", id);
+        return updateBook(id, bookRequestDto, null);
+    }
+    
+    /**
+     * Flushes so the response carries the incremented version; the UPDATE is
+     * guarded by the version read here, so a write committed in between fails
+     * with an optimistic-locking conflict rather than being overwritten.
+     */
+    @Override
+    public BookResponseDto updateBook(Long id, BookRequestDto bookRequestDto, Set<Long> expectedVersions) {
+        log.debug("Updating book with ID: {}", id);
         
         Book existingBook = bookRepository.findById(id)
                 .orElseThrow(() -> new BookNotFoundException(id));
         
+        if (expectedVersions != null && !expectedVersions.contains(existingBook.getVersion())) {
+            throw new PreconditionFailedException(String.format(
+                    "Book %d is at version %d, not an expected version %s", id, existingBook.getVersion(), expectedVersions));
+        }
+        
         bookMapper.updateEntity(existingBook, bookRequestDto);
-        Book updatedBook = bookRepository.save(existingBook);
+        Book updatedBook = bookRepository.saveAndFlush(existingBook);
         
-        log.info("Book updated successfully with ID: {}", updatedBook.getId());
+        log.debug("Book updated successfully with ID: {}", updatedBook.getId());
         
         return bookMapper.toResponseDto(updatedBook);
     }
     
     @Override
     public void deleteBook(Long id) {
-        log.info("Deleting book with ID: {}", id);
+        log.debug("Deleting book with ID: {}", id);
         
         if (!bookRepository.existsById(id)) {
             throw new BookNotFoundException(id);
@@ -79,32 +210,194 @@ public class BookServiceImpl implements BookService {
         
         bookRepository.deleteById(id);
         
-        log.info("Book deleted successfully with ID: {}", id);
+        log.debug("Book deleted successfully with ID: {}", id);
     }
     
     @Override
     @Transactional(readOnly = true)
     public Page<BookResponseDto> getAllBooks(Pageable pageable) {
-        log.info("Fetching all books with pagination: page={}, size={}", 
+        log.debug("Fetching all books with pagination: page={}, size={}", 
                 pageable.getPageNumber(), pageable.getPageSize());
         
-        Page<Book> books = bookRepository.findAll(pageable);
+        return new PageImpl<>(bookRepository.findAllResponses(pageable), pageable, bookCounter.total());
+    }
+    
+    /**
+     * Filters are trimmed, and blank ones ignored. Pages come from
+     * {@link SearchResultCache} when possible; otherwise concurrent identical
+     * searches share one read through {@link BookReadCoalescer}. Each read
+     * runs in the repository's own read-only transaction, so callers waiting
+     * for another's read do not hold a connection meanwhile.
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Page<BookResponseDto> searchBooks(String title, String author, Pageable pageable) {
+        log.debug("Searching books with title: '{}' and author: '{}'", title, author);
+        
+        String titleFilter = searchFilter(title);
+        String authorFilter = searchFilter(author);
+        return searchResultCache.get(titleFilter, authorFilter, pageable,
+                () -> bookReadCoalescer.search(titleFilter, authorFilter, pageable,
+                        () -> loadSearch(titleFilter, authorFilter, pageable)),
+                this::getCachedBooksInOrder);
+    }
+    
+    private static String searchFilter(String filter) {
+        return filter == null || filter.isBlank() ? null : filter.trim();
+    }
+    
+    private List<BookResponseDto> getCachedBooksInOrder(List<Long> ids) {
+        Map<Long, BookResponseDto> booksById = bookCache.getAll(ids, this::loadBooks);
+        return ids.stream()
+                .map(booksById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+    
+    private Page<BookResponseDto> loadSearch(String title, String author, Pageable pageable) {
+        if (bookSearchIndex.isReady() && bookSearchIndex.supports(pageable)) {
+            return searchBooksFromIndex(title, author, pageable);
+        }
         
-        return books.map(bookMapper::toResponseDto);
+        if (title == null && author == null) {
+            return getAllBooks(pageable);
+        }
+        return bookRepository.findResponsesByTitleAndAuthor(title, author, pageable);
     }
     
+    /**
+     * Totals from the search index are exact. Without it the database counts
+     * matches only up to {@value #APPROXIMATE_COUNT_CAP}, which bounds the
+     * count for broad filters, and reads one row past the page for {@code hasNext}.
+     */
     @Override
     @Transactional(readOnly = true)
-    public Page<BookResponseDto> searchBooks(String title, String author, Pageable pageable) {
-        log.info("Searching books with title: '{}' and author: '{}'", title, author);
+    public SlicePageDto<BookResponseDto> searchBooksApproximate(String title, String author, Pageable pageable) {
+        log.debug("Searching books with approximate total, title: '{}' and author: '{}'", title, author);
+        
+        if (bookSearchIndex.isReady() && bookSearchIndex.supports(pageable)) {
+            Page<BookResponseDto> page = searchBooksFromIndex(title, author, pageable);
+            return new SlicePageDto<>(page.getContent(), page.getNumber(), page.getSize(), page.hasNext(),
+                    page.getTotalElements(), false);
+        }
+        
+        Slice<BookResponseDto> slice = bookRepository.findResponseSliceByTitleAndAuthor(title, author, pageable);
+        long total;
+        boolean capped;
+        if (title == null && author == null) {
+            total = bookCounter.total();
+            capped = false;
+        } else {
+            long counted = bookRepository.countMatchesUpTo(title, author, APPROXIMATE_COUNT_CAP + 1);
+            capped = counted > APPROXIMATE_COUNT_CAP;
+            total = Math.max(Math.min(counted, APPROXIMATE_COUNT_CAP), pageable.getOffset() + slice.getNumberOfElements());
+        }
+        return new SlicePageDto<>(slice.getContent(), slice.getNumber(), slice.getSize(), slice.hasNext(), total, capped);
+    }
+    
+    private Page<BookResponseDto> searchBooksFromIndex(String title, String author, Pageable pageable) {
+        long[] matches = bookSearchIndex.search(title, author);
+        
+        int from = (int) Math.min(pageable.getOffset(), matches.length);
+        int to = Math.min(from + pageable.getPageSize(), matches.length);
+        List<BookResponseDto> content = findAllInOrder(matches, from, to);
+        
+        return new PageImpl<>(content, pageable, matches.length);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<BookResponseDto> getBooksAfter(String cursor, int size, String sortBy, String sortDir,
+                                                        boolean includeTotal) {
+        log.debug("Fetching books after cursor: size={}, sortBy={}", size, sortBy);
+        
+        KeysetSort sort = KeysetSort.fromProperty(sortBy);
+        Sort.Direction direction = SortSpecParser.parseDirection(sortDir);
+        BookCursor after = decodeCursor(cursor, sort, direction);
+        validateKeysetSize(size);
         
-        Page<Book> books = bookRepository.findByTitleContainingIgnoreCaseOrAuthorContainingIgnoreCase(
-                title, author, pageable);
+        List<BookResponseDto> rows = bookRepository.findKeysetPage(null, null, sort, direction, after, size + 1);
+        Long total = includeTotal ? bookCounter.total() : null;
         
-        return books.map(bookMapper::toResponseDto);
+        return toCursorPage(rows, size, sort, direction, total);
     }
     
     @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<BookResponseDto> searchBooksAfter(String title, String author, String cursor, int size,
+                                                           boolean includeTotal) {
+        log.debug("Searching books after cursor with title: '{}' and author: '{}'", title, author);
+        
+        BookCursor after = decodeCursor(cursor, KeysetSort.ID, Sort.Direction.ASC);
+        validateKeysetSize(size);
+        
+        if (bookSearchIndex.isReady()) {
+            long[] matches = bookSearchIndex.search(title, author);
+            int from = 0;
+            if (after != null) {
+                int position = Arrays.binarySearch(matches, after.id());
+                from = position >= 0 ? position + 1 : -position - 1;
+            }
+            int to = (int) Math.min((long) from + size + 1, matches.length);
+            List<BookResponseDto> rows = findAllInOrder(matches, from, to);
+            return toCursorPage(rows, size, KeysetSort.ID, Sort.Direction.ASC, includeTotal ? (long) matches.length : null);
+        }
+        
+        List<BookResponseDto> rows = bookRepository.findKeysetPage(title, author, KeysetSort.ID, Sort.Direction.ASC, after, size + 1);
+        Long total = includeTotal ? bookRepository.countByTitleAndAuthor(title, author) : null;
+        
+        return toCursorPage(rows, size, KeysetSort.ID, Sort.Direction.ASC, total);
+    }
+    
+    private List<BookResponseDto> findAllInOrder(long[] ids, int from, int to) {
+        if (from >= to) {
+            return List.of();
+        }
+        List<Long> pageIds = Arrays.stream(ids, from, to).boxed().toList();
+        Map<Long, BookResponseDto> booksById = bookRepository.findResponsesByIdIn(pageIds).stream()
+                .collect(Collectors.toMap(BookResponseDto::getId, Function.identity()));
+        
+        return pageIds.stream()
+                .map(booksById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+    
+    private static BookCursor decodeCursor(String cursor, KeysetSort sort, Sort.Direction direction) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        return BookCursor.decode(cursor).requireOrdering(sort, direction);
+    }
+    
+    private static void validateKeysetSize(int size) {
+        if (size < 1 || size > MAX_KEYSET_PAGE_SIZE) {
+            throw new InvalidPaginationException("Page size must be between 1 and " + MAX_KEYSET_PAGE_SIZE);
+        }
+    }
+    
+    private CursorPageDto<BookResponseDto> toCursorPage(List<BookResponseDto> rows, int size, KeysetSort sort,
+                                                        Sort.Direction direction, Long total) {
+        boolean hasNext = rows.size() > size;
+        List<BookResponseDto> page = hasNext ? rows.subList(0, size) : rows;
+        
+        String next = null;
+        if (hasNext) {
+            BookResponseDto last = page.get(page.size() - 1);
+            String value = switch (sort) {
+                case ID -> null;
+                case TITLE -> last.getTitle();
+                case AUTHOR -> last.getAuthor();
+                case ISBN -> last.getIsbn();
+            };
+            next = new BookCursor(sort, direction, value, last.getId()).encode();
+        }
+        
+        return new CursorPageDto<>(List.copyOf(page), page.size(), next, total);
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public String generateDummyBooks(int count) {
         log.info("Generating {} dummy books", count);
         
@@ -130,20 +423,33 @@ public class BookServiceImpl implements BookService {
         };
         
         Random random = new Random();
-        List<Book> dummyBooks = new ArrayList<>();
         
-        for (int i = 0; i < count; i++) {
+        BulkInsertResultDto result = bookBulkInserter.insert(count, i -> {
             Book book = new Book();
             book.setTitle(titles[random.nextInt(titles.length)]);
             book.setAuthor(authors[random.nextInt(authors.length)]);
-
-            dummyBooks.add(book);
-        }
+            return book;
+        });
         
-        List<Book> savedBooks = bookRepository.saveAll(dummyBooks);
+        log.info("Successfully generated {} dummy books", result.getRowsInserted());
         
-        log.info("Successfully generated {} dummy books", savedBooks.size());
+        return String.format("Successfully generated %d dummy books in %d ms (%.0f rows/s)",
+                result.getRowsInserted(), result.getElapsedMillis(), result.getRowsPerSecond());
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkInsertResultDto bulkCreateBooks(List<BookRequestDto> bookRequestDtos) {
+        log.info("Bulk creating {} books", bookRequestDtos.size());
+        
+        return bookBulkInserter.insert(bookRequestDtos.size(), i -> bookMapper.toEntity(bookRequestDtos.get(i)));
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long exportBooks(BookExportFormat format, OutputStream out) throws IOException {
+        log.debug("Exporting books as {}", format);
         
-        return String.format("Successfully generated %d dummy books", savedBooks.size());
+        return bookExporter.export(format, out);
     }
 }
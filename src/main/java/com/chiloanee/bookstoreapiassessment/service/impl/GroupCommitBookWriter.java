@@ -0,0 +1,275 @@
+package com.chiloanee.bookstoreapiassessment.service.impl;
+
+import java.sql.SQLDataException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.hibernate.PropertyValueException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.exception.DataException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.chiloanee.bookstoreapiassessment.dto.BookRequestDto;
+import com.chiloanee.bookstoreapiassessment.dto.BookResponseDto;
+import com.chiloanee.bookstoreapiassessment.entity.Book;
+import com.chiloanee.bookstoreapiassessment.exception.ServiceOverloadedException;
+import com.chiloanee.bookstoreapiassessment.logging.MpscRingBuffer;
+import com.chiloanee.bookstoreapiassessment.mapper.BookMapper;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ValidationException;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Creates books in group-committed batches for callers that can wait for
+ * their result asynchronously.
+ * <p>
+ * Requests go into an {@link MpscRingBuffer} drained by a single writer
+ * thread, which persists up to {@code batch-size} books in one transaction,
+ * starting as soon as the first arrives and waiting at most
+ * {@code max-delay} for more. Each caller's future completes with the
+ * assigned id and ISBN once that transaction has committed. If a batch fails
+ * on its data, such as a constraint violation, its books are retried one per
+ * transaction, so one bad row only fails its own caller; any other failure,
+ * such as an unreachable database, fails the whole batch at once. A full
+ * queue rejects the request rather than blocking it.
+ */
+@Component
+@Slf4j
+public class GroupCommitBookWriter implements MeterBinder {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+    private final BookMapper bookMapper;
+    private final MpscRingBuffer<PendingCreate> queue;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final AtomicInteger submitting = new AtomicInteger();
+    private Thread writer;
+    private volatile boolean running;
+    private volatile boolean writerParked;
+
+    public GroupCommitBookWriter(PlatformTransactionManager transactionManager,
+                                 BookMapper bookMapper,
+                                 @Value("${bookstore.write-behind.queue-capacity:8192}") int queueCapacity,
+                                 @Value("${bookstore.write-behind.batch-size:500}") int batchSize,
+                                 @Value("${bookstore.write-behind.max-delay:5ms}") Duration maxDelay) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.bookMapper = bookMapper;
+        this.queue = new MpscRingBuffer<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = new Thread(this::drain, "book-group-commit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Lets the writer commit what is queued, including requests submitted
+     * concurrently with the call; requests still queued after that fail.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        while (submitting.get() > 0) {
+            Thread.onSpinWait();
+        }
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        if (!writer.isAlive()) {
+            for (PendingCreate pending = queue.poll(); pending != null; pending = queue.poll()) {
+                pending.result().completeExceptionally(
+                        new ServiceOverloadedException("The application is shutting down, retry shortly", 1));
+            }
+        }
+    }
+
+    /**
+     * Queues {@code request} for the next batch; the future completes once the
+     * book has been committed.
+     *
+     * @throws ServiceOverloadedException if the queue is full
+     */
+    public CompletableFuture<BookResponseDto> submit(BookRequestDto request) {
+        PendingCreate pending = new PendingCreate(request, new CompletableFuture<>());
+        // stop() waits for submits that saw running, so none is queued after the writer's last poll
+        submitting.incrementAndGet();
+        try {
+            if (!running || !queue.offer(pending)) {
+                rejected.increment();
+                throw new ServiceOverloadedException("Too many books are waiting to be written, retry shortly", 1);
+            }
+        } finally {
+            submitting.decrementAndGet();
+        }
+        if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+        return pending.result();
+    }
+
+    private void drain() {
+        List<PendingCreate> batch = new ArrayList<>(batchSize);
+        try {
+            writeBatches(batch);
+        } catch (Throwable e) {
+            log.error("The group commit writer stopped, failing the queued books", e);
+            running = false;
+            while (submitting.get() > 0) {
+                Thread.onSpinWait();
+            }
+            ServiceOverloadedException failure = new ServiceOverloadedException("Books cannot be written, retry shortly", 1);
+            batch.forEach(pending -> pending.result().completeExceptionally(failure));
+            for (PendingCreate pending = queue.poll(); pending != null; pending = queue.poll()) {
+                pending.result().completeExceptionally(failure);
+            }
+        }
+    }
+
+    private void writeBatches(List<PendingCreate> batch) {
+        while (true) {
+            PendingCreate first = queue.poll();
+            if (first == null) {
+                if (!running) {
+                    return;
+                }
+                first = pollOrPark(IDLE_PARK_NANOS);
+                if (first == null) {
+                    continue;
+                }
+            }
+
+            batch.add(first);
+            long deadline = System.nanoTime() + maxDelayNanos;
+            while (batch.size() < batchSize) {
+                PendingCreate next = queue.poll();
+                if (next == null) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0 || !running) {
+                        break;
+                    }
+                    next = pollOrPark(remaining);
+                    if (next == null) {
+                        continue;
+                    }
+                }
+                batch.add(next);
+            }
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    /** Producers only unpark a writer that announced it is parked, so poll once more after announcing. */
+    private PendingCreate pollOrPark(long nanos) {
+        writerParked = true;
+        PendingCreate pending = queue.poll();
+        if (pending == null) {
+            LockSupport.parkNanos(this, nanos);
+        }
+        writerParked = false;
+        return pending;
+    }
+
+    private void write(List<PendingCreate> batch) {
+        List<BookResponseDto> created;
+        try {
+            created = transactionTemplate.execute(status -> persist(batch));
+        } catch (Throwable e) {
+            if (batch.size() == 1 || !isDataError(e)) {
+                if (batch.size() > 1) {
+                    log.warn("Group commit of {} books failed: {}", batch.size(), e.toString());
+                }
+                batch.forEach(pending -> pending.result().completeExceptionally(e));
+                return;
+            }
+            log.warn("Group commit of {} books failed, retrying them one by one: {}", batch.size(), e.getMessage());
+            for (PendingCreate pending : batch) {
+                write(List.of(pending));
+            }
+            return;
+        }
+        batches.increment();
+        written.add(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result().complete(created.get(i));
+        }
+    }
+
+    /** Whether the failure comes from the rows themselves, so that the other books of the batch may still succeed. */
+    private static boolean isDataError(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataIntegrityViolationException || cause instanceof ConstraintViolationException
+                    || cause instanceof DataException || cause instanceof PropertyValueException
+                    || cause instanceof ValidationException || cause instanceof SQLIntegrityConstraintViolationException
+                    || cause instanceof SQLDataException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<BookResponseDto> persist(List<PendingCreate> batch) {
+        List<Book> books = new ArrayList<>(batch.size());
+        for (PendingCreate pending : batch) {
+            Book book = bookMapper.toEntity(pending.request());
+            entityManager.persist(book);
+            books.add(book);
+        }
+        entityManager.flush();
+        List<BookResponseDto> created = books.stream().map(bookMapper::toResponseDto).toList();
+        entityManager.clear();
+        return created;
+    }
+
+    /** Transactions committed by the writer so far. */
+    public long batchCount() {
+        return batches.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("bookstore.write_behind.batches", batches, LongAdder::sum)
+                .description("Group-committed transactions of queued book creates")
+                .register(registry);
+        FunctionCounter.builder("bookstore.write_behind.books", written, LongAdder::sum)
+                .description("Books created through the write-behind queue")
+                .register(registry);
+        FunctionCounter.builder("bookstore.write_behind.rejected", rejected, LongAdder::sum)
+                .description("Book creates rejected because the write-behind queue was full")
+                .register(registry);
+    }
+
+    private record PendingCreate(BookRequestDto request, CompletableFuture<BookResponseDto> result) {
+    }
+}
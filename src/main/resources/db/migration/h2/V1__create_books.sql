@@ -0,0 +1,27 @@
+-- Schema previously generated by Hibernate from Book and IsbnBlock. Databases
+-- that Hibernate created are baselined before this version
+-- (spring.flyway.baseline-version=0), so it runs on them too and only adds
+-- what they lack: the version column, isbn_blocks and books_seq, started
+-- past their ids.
+CREATE TABLE IF NOT EXISTS books (
+    id BIGINT NOT NULL,
+    version BIGINT NOT NULL,
+    isbn VARCHAR(13) NOT NULL,
+    author VARCHAR(50) NOT NULL,
+    title VARCHAR(100) NOT NULL,
+    CONSTRAINT pk_books PRIMARY KEY (id),
+    CONSTRAINT uk_books_isbn UNIQUE (isbn)
+);
+
+ALTER TABLE books ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS isbn_blocks (
+    name VARCHAR(32) NOT NULL,
+    next_value BIGINT NOT NULL,
+    CONSTRAINT pk_isbn_blocks PRIMARY KEY (name)
+);
+
+-- Hibernate's pooled optimizer hands out the 50 ids up to the value it reads,
+-- so an existing catalogue starts at MAX(id) + 50; an empty one at 1.
+CREATE SEQUENCE IF NOT EXISTS books_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE books_seq RESTART WITH (SELECT COALESCE(MAX(id) + 50, 1) FROM books);
@@ -0,0 +1,12 @@
+-- One (key, id) index per sortBy option, matching the keyset seek
+-- key > :key OR (key = :key AND id > :id) ORDER BY key, id. H2 cannot walk an
+-- index backwards to produce ORDER BY ... DESC, so each gets a descending twin.
+-- H2 has no expression indexes, so LOWER(title) / LOWER(author) filters are
+-- not indexed here; /books/search is served by the in-memory trigram index.
+CREATE INDEX idx_books_id_desc ON books (id DESC);
+CREATE INDEX idx_books_title_id ON books (title, id);
+CREATE INDEX idx_books_title_id_desc ON books (title DESC, id DESC);
+CREATE INDEX idx_books_author_id ON books (author, id);
+CREATE INDEX idx_books_author_id_desc ON books (author DESC, id DESC);
+CREATE INDEX idx_books_isbn_id ON books (isbn, id);
+CREATE INDEX idx_books_isbn_id_desc ON books (isbn DESC, id DESC);
@@ -0,0 +1,22 @@
+-- Transactional outbox of book changes, written by BookOutboxWriter in the
+-- same transaction as the change. The id is the offset of the change stream.
+CREATE TABLE book_changes (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    book_id BIGINT NOT NULL,
+    change_type VARCHAR(10) NOT NULL,
+    title VARCHAR(100),
+    author VARCHAR(50),
+    isbn VARCHAR(13),
+    book_version BIGINT,
+    changed_at TIMESTAMP NOT NULL,
+    CONSTRAINT pk_book_changes PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_book_changes_changed_at ON book_changes (changed_at);
+
+-- Last change delivered to each BookChangeSink
+CREATE TABLE book_change_offsets (
+    consumer VARCHAR(64) NOT NULL,
+    last_change_id BIGINT NOT NULL,
+    CONSTRAINT pk_book_change_offsets PRIMARY KEY (consumer)
+);
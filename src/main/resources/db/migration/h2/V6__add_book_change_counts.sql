@@ -0,0 +1,3 @@
+-- Committed book changes (inserts, updates and deletes), striped like
+-- row_count; with it, the catalogue version is a sum over 16 rows.
+ALTER TABLE book_counts ADD COLUMN change_count BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,5 @@
+-- What an update replaced, so other nodes drop only the cached searches it
+-- touched, and the node that wrote the change, which already applied it.
+ALTER TABLE book_changes ADD COLUMN previous_title VARCHAR(100);
+ALTER TABLE book_changes ADD COLUMN previous_author VARCHAR(50);
+ALTER TABLE book_changes ADD COLUMN origin VARCHAR(64);
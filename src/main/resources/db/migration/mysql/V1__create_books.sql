@@ -0,0 +1,42 @@
+-- Schema previously generated by Hibernate from Book and IsbnBlock. Databases
+-- that Hibernate created are baselined before this version
+-- (spring.flyway.baseline-version=0), so it runs on them too and only adds
+-- what they lack: the version column, isbn_blocks and books_seq, started
+-- past their ids.
+CREATE TABLE IF NOT EXISTS books (
+    id BIGINT NOT NULL,
+    version BIGINT NOT NULL,
+    isbn VARCHAR(13) NOT NULL,
+    author VARCHAR(50) NOT NULL,
+    title VARCHAR(100) NOT NULL,
+    CONSTRAINT pk_books PRIMARY KEY (id),
+    CONSTRAINT uk_books_isbn UNIQUE (isbn)
+) ENGINE = InnoDB;
+
+-- MySQL has no ADD COLUMN IF NOT EXISTS
+SET @add_version = (
+    SELECT IF(COUNT(*) = 0, 'ALTER TABLE books ADD COLUMN version BIGINT NOT NULL DEFAULT 0', 'DO 0')
+    FROM information_schema.columns
+    WHERE table_schema = DATABASE() AND table_name = 'books' AND column_name = 'version');
+PREPARE add_version FROM @add_version;
+EXECUTE add_version;
+DEALLOCATE PREPARE add_version;
+
+CREATE TABLE IF NOT EXISTS isbn_blocks (
+    name VARCHAR(32) NOT NULL,
+    next_value BIGINT NOT NULL,
+    CONSTRAINT pk_isbn_blocks PRIMARY KEY (name)
+) ENGINE = InnoDB;
+
+-- MySQL has no sequences, so books_seq is the table Hibernate uses in their
+-- place. Hibernate's pooled optimizer hands out the 50 ids up to the value it
+-- reads, so an existing catalogue starts at MAX(id) + 50; an empty one at 1.
+CREATE TABLE IF NOT EXISTS books_seq (
+    next_val BIGINT
+) ENGINE = InnoDB;
+
+INSERT INTO books_seq (next_val)
+SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT * FROM books_seq);
+
+UPDATE books_seq
+SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id) + 50, 0) FROM books));
@@ -0,0 +1,10 @@
+-- One (key, id) index per sortBy option, matching the keyset seek
+-- key > :key OR (key = :key AND id > :id) ORDER BY key, id. InnoDB scans them
+-- backwards for DESC, and uk_books_isbn already ends in the primary key, so
+-- it serves ORDER BY isbn, id.
+CREATE INDEX idx_books_title_id ON books (title, id);
+CREATE INDEX idx_books_author_id ON books (author, id);
+
+-- The search filters are LOWER(column) LIKE '%term%', which no B-tree index
+-- can seek, so they get none; /books/search is served by the in-memory
+-- trigram index.
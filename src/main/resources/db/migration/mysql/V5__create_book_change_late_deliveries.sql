@@ -0,0 +1,10 @@
+-- Changes BookChangeRelay delivered to a sink after its offset had passed
+-- them, because they committed late; keeps instances from delivering twice.
+CREATE TABLE book_change_late_deliveries (
+    consumer VARCHAR(64) NOT NULL,
+    change_id BIGINT NOT NULL,
+    delivered_at DATETIME(6) NOT NULL,
+    CONSTRAINT pk_book_change_late_deliveries PRIMARY KEY (consumer, change_id)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_book_change_late_deliveries_delivered_at ON book_change_late_deliveries (delivered_at);
@@ -0,0 +1,55 @@
+package com.chiloanee.bookstoreapiassessment.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.chiloanee.bookstoreapiassessment.dto.BookRequestDto;
+import com.chiloanee.bookstoreapiassessment.dto.BookResponseDto;
+import com.chiloanee.bookstoreapiassessment.entity.Book;
+import com.chiloanee.bookstoreapiassessment.mapper.BookMapper;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookMapperBenchmark {
+
+    private final BookMapper bookMapper = new BookMapper();
+    private Book book;
+    private BookRequestDto request;
+
+    @Setup
+    public void setUp() {
+        book = new Book();
+        book.setId(42L);
+        book.setTitle("The Pragmatic Programmer");
+        book.setAuthor("Andy Hunt");
+        book.setIsbn("9780306406157");
+
+        request = new BookRequestDto();
+        request.setTitle("The Pragmatic Programmer");
+        request.setAuthor("Andy Hunt");
+    }
+
+    @Benchmark
+    public BookResponseDto toResponseDto() {
+        return bookMapper.toResponseDto(book);
+    }
+
+    @Benchmark
+    public Book toEntity() {
+        return bookMapper.toEntity(request);
+    }
+}
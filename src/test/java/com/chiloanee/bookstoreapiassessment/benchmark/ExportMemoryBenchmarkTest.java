@@ -0,0 +1,87 @@
+package com.chiloanee.bookstoreapiassessment.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.chiloanee.bookstoreapiassessment.export.BookExportFormat;
+import com.chiloanee.bookstoreapiassessment.service.BookService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Live heap half-way through {@code GET /books/export} as the catalogue grows.
+ * The in-memory H2 database lives on the same heap, so the figure reported is
+ * the growth over a post-GC baseline taken after seeding. Run with
+ * {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+class ExportMemoryBenchmarkTest extends SeededCatalogueBenchmark {
+
+    private static final int[] CATALOGUE_SIZES = {10_000, 100_000, 500_000};
+
+    @Autowired
+    private BookService bookService;
+
+    @Test
+    void exportHeapStaysFlatAsCatalogueGrows() throws IOException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        StringBuilder report = new StringBuilder(String.format("%n%-10s %-8s %14s %12s %12s%n",
+                "rows", "format", "live heap MB", "MB written", "rows/s"));
+        int seeded = 0;
+        for (int size : CATALOGUE_SIZES) {
+            seed(seeded, size, i -> "Export Title " + i, i -> "Export Author " + (i % 100));
+            seeded = size;
+
+            for (BookExportFormat format : BookExportFormat.values()) {
+                System.gc();
+                long baseline = memory.getHeapMemoryUsage().getUsed();
+                HeapProbe probe = new HeapProbe(size / 2, memory);
+
+                long start = System.nanoTime();
+                long rows = bookService.exportBooks(format, probe);
+                double seconds = (System.nanoTime() - start) / 1e9;
+
+                assertEquals(size, rows);
+                report.append(String.format("%-10d %-8s %14.1f %12.1f %12.0f%n", size, format,
+                        (probe.heapAtMidpoint - baseline) / 1048576.0, probe.bytes / 1048576.0, rows / seconds));
+            }
+        }
+        log.info("Export heap by catalogue size:{}", report);
+    }
+
+    /** Discards output, taking a post-GC heap reading once half the rows have been written. */
+    private static final class HeapProbe extends OutputStream {
+        private final long midpointRows;
+        private final MemoryMXBean memory;
+        private long lines;
+        private long bytes;
+        private long heapAtMidpoint;
+
+        HeapProbe(long midpointRows, MemoryMXBean memory) {
+            this.midpointRows = midpointRows;
+            this.memory = memory;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            bytes += length;
+            for (int i = offset; i < offset + length; i++) {
+                if (buffer[i] == '\n' && ++lines == midpointRows) {
+                    System.gc();
+                    heapAtMidpoint = memory.getHeapMemoryUsage().getUsed();
+                }
+            }
+        }
+    }
+}
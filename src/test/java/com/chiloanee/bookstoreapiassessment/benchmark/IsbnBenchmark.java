@@ -0,0 +1,62 @@
+package com.chiloanee.bookstoreapiassessment.benchmark;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.chiloanee.bookstoreapiassessment.isbn.FeistelIsbnGenerator;
+import com.chiloanee.bookstoreapiassessment.isbn.Isbn13;
+
+/**
+ * ISBN-13 check digit and generation. {@code legacyCheckDigit} is the routine
+ * that used to live in {@code Book.calculateIsbnCheckDigit}, kept as a baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IsbnBenchmark {
+
+    private String isbn = "9780306406157";
+    private final AtomicLong counter = new AtomicLong();
+    private final FeistelIsbnGenerator generator =
+            new FeistelIsbnGenerator(blockSize -> counter.getAndAdd(blockSize), isbns -> Set.of(), 10_000,
+                    Duration.ofSeconds(5), 42L);
+
+    @Benchmark
+    public int checkDigit() {
+        return Isbn13.checkDigit(isbn);
+    }
+
+    @Benchmark
+    public int legacyCheckDigit() {
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            int digit = Character.getNumericValue(isbn.charAt(i));
+            if (i % 2 == 0) {
+                sum += digit * 1;
+            } else {
+                sum += digit * 3;
+            }
+        }
+        return (10 - (sum % 10)) % 10;
+    }
+
+    @Benchmark
+    public String nextIsbn() {
+        return generator.nextIsbn();
+    }
+}
@@ -0,0 +1,106 @@
+package com.chiloanee.bookstoreapiassessment.benchmark;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.chiloanee.bookstoreapiassessment.isbn.FeistelIsbnGenerator;
+import com.chiloanee.bookstoreapiassessment.isbn.IsbnBlockAllocator;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Throughput of ISBN generation with 64 threads creating books at once,
+ * comparing the former {@code Math.random()} generator with
+ * {@link FeistelIsbnGenerator}. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@Slf4j
+class IsbnGeneratorContentionBenchmarkTest {
+
+    private static final int THREADS = 64;
+    private static final int PER_THREAD = 50_000;
+
+    @Test
+    void compareGeneratorsUnderContention() throws Exception {
+        AtomicLong counter = new AtomicLong();
+        IsbnBlockAllocator allocator = blockSize -> counter.getAndAdd(blockSize);
+        FeistelIsbnGenerator feistel = new FeistelIsbnGenerator(allocator, isbns -> Set.of(), 10_000, Duration.ofSeconds(5),
+                42L);
+
+        run("warm-up legacy", IsbnGeneratorContentionBenchmarkTest::legacyIsbn, false);
+        run("warm-up feistel", feistel::nextIsbn, false);
+
+        run("legacy Math.random", IsbnGeneratorContentionBenchmarkTest::legacyIsbn, false);
+        run("feistel + blocks", feistel::nextIsbn, false);
+
+        run("legacy uniqueness", IsbnGeneratorContentionBenchmarkTest::legacyIsbn, true);
+        Set<String> produced = run("feistel uniqueness", feistel::nextIsbn, true);
+
+        assertEquals((long) THREADS * PER_THREAD, produced.size(), "feistel generator produced duplicates");
+    }
+
+    private static Set<String> run(String name, Supplier<String> generator, boolean collect) throws Exception {
+        Set<String> produced = collect ? ConcurrentHashMap.newKeySet(THREADS * PER_THREAD) : Set.of();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        long[] duplicates = new long[1];
+        for (int t = 0; t < THREADS; t++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < PER_THREAD; i++) {
+                        String isbn = generator.get();
+                        if (collect && !produced.add(isbn)) {
+                            synchronized (duplicates) {
+                                duplicates[0]++;
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+        pool.shutdown();
+
+        double opsPerSecond = (double) THREADS * PER_THREAD * 1_000_000_000L / elapsed;
+        log.info(String.format("%-20s %d threads: %,.0f ISBN/s%s", name, THREADS, opsPerSecond,
+                collect ? ", duplicates=" + duplicates[0] : ""));
+        return produced;
+    }
+
+    /**
+     * The generator {@code Book} used before it delegated to {@code IsbnGenerator}.
+     */
+    private static String legacyIsbn() {
+        StringBuilder isbnBuilder = new StringBuilder("978");
+        for (int i = 0; i < 9; i++) {
+            isbnBuilder.append((int) (Math.random() * 10));
+        }
+        String isbnWithoutCheckDigit = isbnBuilder.toString();
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            int digit = Character.getNumericValue(isbnWithoutCheckDigit.charAt(i));
+            sum += i % 2 == 0 ? digit : digit * 3;
+        }
+        isbnBuilder.append((10 - (sum % 10)) % 10);
+        return isbnBuilder.toString();
+    }
+}
@@ -0,0 +1,98 @@
+package com.chiloanee.bookstoreapiassessment.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.chiloanee.bookstoreapiassessment.dto.BookResponseDto;
+import com.chiloanee.bookstoreapiassessment.dto.SlimPageDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+/**
+ * Jackson serialization of the page returned by {@code GET /books} in each
+ * representation a client can negotiate, using the same builder defaults as
+ * Spring MVC, with and without the gzip compression Tomcat applies. The bytes
+ * each produces are reported by {@link WireFormatSizeBenchmarkTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int pageSize;
+
+    @Param({"json", "slim-json", "cbor"})
+    private String format;
+
+    private ObjectMapper objectMapper;
+    private Object body;
+
+    @Setup
+    public void setUp() {
+        Page<BookResponseDto> page = page(pageSize);
+        objectMapper = mapper(format);
+        body = format.equals("json") ? page : SlimPageDto.of(page);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(body);
+    }
+
+    @Benchmark
+    public byte[] serializeAndGzipPage() throws Exception {
+        return gzip(objectMapper.writeValueAsBytes(body));
+    }
+
+    static Page<BookResponseDto> page(int pageSize) {
+        List<BookResponseDto> books = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            BookResponseDto book = new BookResponseDto();
+            book.setId((long) i);
+            book.setTitle("Spring Boot in Action, volume " + i);
+            book.setAuthor("Craig Walls");
+            book.setIsbn(String.format("978%010d", i));
+            book.setVersion(0L);
+            books.add(book);
+        }
+        return new PageImpl<>(books, PageRequest.of(3, pageSize), 50_000);
+    }
+
+    static ObjectMapper mapper(String format) {
+        return format.equals("cbor")
+                ? Jackson2ObjectMapperBuilder.cbor().factory(new CBORFactory()).build()
+                : Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
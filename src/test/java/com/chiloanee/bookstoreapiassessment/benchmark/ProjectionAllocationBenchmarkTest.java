@@ -0,0 +1,94 @@
+package com.chiloanee.bookstoreapiassessment.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.chiloanee.bookstoreapiassessment.dto.BookResponseDto;
+import com.chiloanee.bookstoreapiassessment.mapper.BookMapper;
+import com.chiloanee.bookstoreapiassessment.repository.BookRepository;
+
+import com.sun.management.ThreadMXBean;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bytes allocated per read for the entity-plus-mapper path each read used to
+ * take, against the DTO projections that replaced it. Both run in the same
+ * read-only transaction the service opens. Run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+class ProjectionAllocationBenchmarkTest extends SeededCatalogueBenchmark {
+
+    private static final int CATALOGUE_SIZE = 5_000;
+    private static final int[] PAGE_SIZES = {20, 100};
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 2_000;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void compareEntityAndProjectionAllocation() {
+        seed(0, CATALOGUE_SIZE, i -> "Title " + i, i -> "Author " + (i % 50));
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        StringBuilder report = new StringBuilder(String.format("%n%-22s %6s %16s %16s %8s%n",
+                "read", "rows", "entity (B/op)", "projection (B/op)", "saved"));
+        for (int size : PAGE_SIZES) {
+            PageRequest page = PageRequest.of(3, size);
+            List<Long> ids = LongStream.range(SEED_ID_BASE, SEED_ID_BASE + size).boxed().toList();
+
+            report.append(row("getAllBooks", size,
+                    () -> readOnly.execute(status -> bookRepository.findAll(page).map(bookMapper::toResponseDto).getContent()),
+                    () -> readOnly.execute(status -> bookRepository.findAllResponses(page))));
+            report.append(row("searchBooks (LIKE)", size,
+                    () -> readOnly.execute(status -> bookRepository
+                            .findByTitleContainingIgnoreCaseOrAuthorContainingIgnoreCase("title", null, page)
+                            .map(bookMapper::toResponseDto).getContent()),
+                    () -> readOnly.execute(status -> bookRepository.findResponsesByTitleAndAuthor("title", null, page).getContent())));
+            report.append(row("searchBooks (index)", size,
+                    () -> readOnly.execute(status -> bookRepository.findAllById(ids).stream()
+                            .map(bookMapper::toResponseDto).toList()),
+                    () -> readOnly.execute(status -> bookRepository.findResponsesByIdIn(ids))));
+        }
+
+        log.info("Allocation per read:{}", report);
+    }
+
+    private static String row(String read, int rows, Supplier<List<BookResponseDto>> entity,
+                              Supplier<List<BookResponseDto>> projection) {
+        assertEquals(entity.get(), projection.get(), read + " returned different results");
+        long entityBytes = allocatedPerOp(entity);
+        long projectionBytes = allocatedPerOp(projection);
+        return String.format("%-22s %6d %16d %16d %7.0f%%%n", read, rows, entityBytes, projectionBytes,
+                100.0 * (entityBytes - projectionBytes) / entityBytes);
+    }
+
+    private static long allocatedPerOp(Supplier<?> operation) {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP; i++) {
+            operation.get();
+        }
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < ITERATIONS; i++) {
+            operation.get();
+        }
+        return (threads.getThreadAllocatedBytes(thread) - before) / ITERATIONS;
+    }
+}
@@ -0,0 +1,88 @@
+package com.chiloanee.bookstoreapiassessment.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import com.chiloanee.bookstoreapiassessment.BookStoreApiAssessmentApplication;
+import com.chiloanee.bookstoreapiassessment.dto.BookResponseDto;
+import com.chiloanee.bookstoreapiassessment.repository.BookRepository;
+import com.chiloanee.bookstoreapiassessment.search.BookSearchIndex;
+import com.chiloanee.bookstoreapiassessment.service.BookService;
+
+/**
+ * {@code BookServiceImpl.searchBooks} against an H2 database seeded through
+ * the bulk pipeline, alongside the {@code LIKE} repository query it replaces.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBooksBenchmark {
+
+    @Param({"10000", "100000"})
+    private int catalogueSize;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private BookRepository bookRepository;
+    private final Pageable firstPage = PageRequest.of(0, 10);
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(BookStoreApiAssessmentApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:jmh_search;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.format_sql=false",
+                        "logging.level.root=WARN",
+                        "logging.level.com.chiloanee.bookstoreapiassessment=WARN")
+                .run();
+        bookService = context.getBean(BookService.class);
+        bookRepository = context.getBean(BookRepository.class);
+
+        bookService.generateDummyBooks(catalogueSize);
+        context.getBean(BookSearchIndex.class).rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<BookResponseDto> searchByTitle() {
+        return bookService.searchBooks("java", null, firstPage);
+    }
+
+    @Benchmark
+    public Page<BookResponseDto> searchByTitleAndAuthor() {
+        return bookService.searchBooks("design", "martin", firstPage);
+    }
+
+    @Benchmark
+    public Object likeQueryByTitle() {
+        return bookRepository.findByTitleContainingIgnoreCaseOrAuthorContainingIgnoreCase("java", null, firstPage);
+    }
+}
@@ -0,0 +1,86 @@
+package com.chiloanee.bookstoreapiassessment.benchmark;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import com.chiloanee.bookstoreapiassessment.repository.BookRepository;
+import com.chiloanee.bookstoreapiassessment.search.BookSearchIndex;
+import com.chiloanee.bookstoreapiassessment.service.BookService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compares the trigram index against the {@code LIKE '%q%'} repository query
+ * as the catalogue grows. Run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+class SearchIndexBenchmarkTest extends SeededCatalogueBenchmark {
+
+    private static final int[] CATALOGUE_SIZES = {10_000, 50_000, 200_000};
+    private static final String[][] QUERIES = {{"java", null}, {null, "martin"}, {"code", "robert"}};
+    private static final int WARMUP = 5;
+    private static final int ITERATIONS = 20;
+
+    private static final String[] TITLE_WORDS = {
+            "Clean", "Code", "Java", "Spring", "Patterns", "Effective", "Design", "Systems",
+            "Programming", "Kotlin", "Data", "Cloud", "Algorithms", "Refactoring", "Testing"
+    };
+    private static final String[] AUTHORS = {
+            "Robert Martin", "Joshua Bloch", "Martin Fowler", "Craig Walls", "Kent Beck",
+            "Alex Xu", "Andy Hunt", "Eric Evans", "Brian Goetz", "Sam Newman"
+    };
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private BookService bookService;
+
+    @Test
+    void compareIndexAgainstLikeQuery() {
+        StringBuilder report = new StringBuilder(String.format("%n%-10s %-18s %14s %14s%n",
+                "rows", "query", "jpql (us/op)", "index (us/op)"));
+        int seeded = 0;
+        for (int size : CATALOGUE_SIZES) {
+            seed(seeded, size, i -> TITLE_WORDS[i % TITLE_WORDS.length] + " "
+                    + TITLE_WORDS[(i / 7) % TITLE_WORDS.length] + " " + i, i -> AUTHORS[(i / 3) % AUTHORS.length]);
+            seeded = size;
+            bookSearchIndex.rebuild();
+
+            for (String[] query : QUERIES) {
+                String title = query[0];
+                String author = query[1];
+                PageRequest page = PageRequest.of(0, 10);
+
+                Page<?> viaLike = bookRepository.findByTitleContainingIgnoreCaseOrAuthorContainingIgnoreCase(title, author, page);
+                Page<?> viaIndex = bookService.searchBooks(title, author, page);
+                assertEquals(viaLike.getTotalElements(), viaIndex.getTotalElements());
+
+                double like = time(() -> bookRepository.findByTitleContainingIgnoreCaseOrAuthorContainingIgnoreCase(title, author, page));
+                double indexed = time(() -> bookService.searchBooks(title, author, page));
+                report.append(String.format("%-10d %-18s %14.1f %14.1f%n",
+                        size, title + "/" + author, like, indexed));
+            }
+        }
+        log.info("Search latency by catalogue size:{}", report);
+    }
+
+    private static double time(Supplier<?> operation) {
+        for (int i = 0; i < WARMUP; i++) {
+            operation.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            operation.get();
+        }
+        return (System.nanoTime() - start) / 1_000.0 / ITERATIONS;
+    }
+}
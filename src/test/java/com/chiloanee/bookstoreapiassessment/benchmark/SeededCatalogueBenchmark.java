@@ -0,0 +1,67 @@
+package com.chiloanee.bookstoreapiassessment.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+
+/**
+ * Benchmarks that measure the application against a catalogue seeded with
+ * JDBC batches, far faster than through the service. Seeded books take ids
+ * from {@link #SEED_ID_BASE}, so removing them leaves the test database's
+ * other books alone, and both steps keep {@code book_counts} in step.
+ * <p>
+ * Seeding bypasses the caches and the search index, so each benchmark gets
+ * its own context, discarded afterwards rather than left holding books that
+ * no longer exist.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.com.chiloanee.bookstoreapiassessment=INFO",
+        "logging.level.org.springframework.web=INFO"
+})
+@DirtiesContext
+abstract class SeededCatalogueBenchmark {
+
+    static final long SEED_ID_BASE = 1_000_000_000L;
+
+    private static final int BATCH = 5_000;
+    private static final String INSERT = "INSERT INTO books (id, title, author, isbn, version) VALUES (?, ?, ?, ?, 0)";
+    private static final String COUNT = "UPDATE book_counts SET row_count = row_count + ?, "
+            + "change_count = change_count + ? WHERE slot = 0";
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    /** Inserts the books numbered {@code from} to {@code to}, exclusive, with ids and ISBNs from their number. */
+    protected void seed(int from, int to, IntFunction<String> title, IntFunction<String> author) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            rows.add(new Object[] {SEED_ID_BASE + i, title.apply(i), author.apply(i), String.format("979%010d", i)});
+            if (rows.size() == BATCH) {
+                jdbcTemplate.batchUpdate(INSERT, rows);
+                rows.clear();
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT, rows);
+        }
+        jdbcTemplate.update(COUNT, to - from, to - from);
+    }
+
+    @AfterEach
+    void removeSeededBooks() {
+        int removed = jdbcTemplate.update("DELETE FROM books WHERE id >= ?", SEED_ID_BASE);
+        jdbcTemplate.update(COUNT, -removed, removed);
+    }
+}
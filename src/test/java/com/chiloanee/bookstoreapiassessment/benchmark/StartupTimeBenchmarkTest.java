@@ -0,0 +1,98 @@
+package com.chiloanee.bookstoreapiassessment.benchmark;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Time from JVM launch to the first successful {@code GET /books}, for the
+ * default configuration and each layer of the fast-start mode: the
+ * fast-start Spring profile, AOT-processed startup, and the CDS archive.
+ * <p>
+ * Every mode starts a fresh JVM from the {@code target/fast-start} layout,
+ * so build it first: {@code mvn package -Pfast-start -DskipTests}, then
+ * {@code mvn test -Pbenchmark -Dtest=StartupTimeBenchmarkTest}.
+ */
+@Tag("benchmark")
+@Slf4j
+class StartupTimeBenchmarkTest {
+
+    private static final Path FAST_START = Path.of("target", "fast-start");
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    @Test
+    void compareTimeToFirstRequest() throws Exception {
+        assumeTrue(Files.exists(FAST_START.resolve("app.jsa")),
+                "needs the fast-start build: mvn package -Pfast-start -DskipTests");
+
+        StringBuilder report = new StringBuilder(String.format("%n%-28s %16s%n", "mode", "first request"));
+        report.append(run("default"));
+        report.append(run("fast-start profile", "-Dspring.profiles.active=fast-start"));
+        report.append(run("fast-start + AOT", "-Dspring.profiles.active=fast-start", "-Dspring.aot.enabled=true"));
+        report.append(run("fast-start + AOT + CDS", "-XX:SharedArchiveFile=app.jsa",
+                "-Dspring.profiles.active=fast-start", "-Dspring.aot.enabled=true"));
+        log.info("Time to first request by startup mode:{}", report);
+    }
+
+    private String run(String mode, String... jvmArguments) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(List.of(jvmArguments));
+        command.addAll(List.of("-Dserver.port=" + port, "-Dlogging.level.root=WARN", "-jar", "app.jar"));
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .directory(FAST_START.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/books")).build();
+            long deadline = start + STARTUP_TIMEOUT.toNanos();
+            while (!firstRequestSucceeded(request)) {
+                assertTrue(process.isAlive(), () -> mode + ": application exited with " + process.exitValue());
+                assertTrue(System.nanoTime() < deadline, mode + ": no response within " + STARTUP_TIMEOUT);
+                Thread.sleep(20);
+            }
+            return String.format("%-28s %14dms%n", mode, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } finally {
+            process.destroy();
+            process.waitFor(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private boolean firstRequestSucceeded(HttpRequest request) throws InterruptedException {
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
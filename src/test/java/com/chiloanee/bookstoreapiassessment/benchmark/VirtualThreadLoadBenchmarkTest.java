@@ -0,0 +1,214 @@
+package com.chiloanee.bookstoreapiassessment.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.chiloanee.bookstoreapiassessment.BookStoreApiAssessmentApplication;
+import com.chiloanee.bookstoreapiassessment.service.BookService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Closed-loop HTTP load against the running application during a simulated
+ * slow-database spike, comparing the platform-thread model with the
+ * datasource limiter and, on Java 21, with virtual-thread request handling.
+ * <p>
+ * Most requests are cached {@code GET /books/{id}} reads that never touch the
+ * database; the rest are {@code /books/search} queries that do. While the
+ * spike holds most pool connections, the interesting number is how far the
+ * cached reads' p99 degrades. Every mode but the first runs behind the
+ * adaptive service limiter, whose fast 503s are counted as errors. Run with
+ * {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@Slf4j
+class VirtualThreadLoadBenchmarkTest {
+
+    private static final int CLIENTS = 256;
+    private static final int CATALOGUE_SIZE = 1_000;
+    private static final int SEARCH_PERCENT = 20;
+    private static final int HELD_CONNECTIONS = 8;
+    private static final Duration RUN = Duration.ofSeconds(6);
+    private static final Duration SPIKE_START = Duration.ofSeconds(2);
+    private static final Duration SPIKE_LENGTH = Duration.ofSeconds(2);
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    void compareRequestExecutionModels() throws Exception {
+        StringBuilder report = new StringBuilder(String.format("%n%-22s %10s %8s %12s %12s %12s %12s%n",
+                "mode", "req/s", "errors", "cached p50", "cached p99", "search p50", "search p99"));
+        report.append(run("platform, no limiter", "bookstore.service.limiter.enabled=false"));
+        report.append(run("platform", "bookstore.datasource.limiter.enabled=false"));
+        report.append(run("platform + limiter", "bookstore.datasource.limiter.enabled=true"));
+        if (Runtime.version().feature() >= 21) {
+            report.append(run("virtual + limiter", "spring.profiles.active=virtual-threads"));
+        } else {
+            report.append(String.format("%-22s skipped: needs Java 21 (mvn test -Pbenchmark,java21)%n", "virtual + limiter"));
+        }
+        log.info("Load during a slow-database spike by execution model:{}", report);
+    }
+
+    private String run(String mode, String modeProperty) throws Exception {
+        try (ConfigurableApplicationContext context = start(mode, modeProperty)) {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/books";
+            context.getBean(BookService.class).generateDummyBooks(CATALOGUE_SIZE);
+            for (long id = 1; id <= CATALOGUE_SIZE; id++) {
+                send(baseUrl + "/" + id);
+            }
+
+            ExecutorService clients = Executors.newFixedThreadPool(CLIENTS + 1);
+            long deadline = System.nanoTime() + RUN.toNanos();
+            List<Future<Samples>> results = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                results.add(clients.submit(() -> drive(baseUrl, deadline)));
+            }
+            Future<?> spike = clients.submit(() -> holdConnections(context.getBean(DataSource.class)));
+
+            Samples total = new Samples();
+            for (Future<Samples> result : results) {
+                total.merge(result.get());
+            }
+            spike.get();
+            clients.shutdown();
+            assertTrue(clients.awaitTermination(30, TimeUnit.SECONDS));
+
+            double seconds = RUN.toNanos() / 1e9;
+            assertTrue(total.cached.size + total.search.size > 0, "no requests completed in mode " + mode);
+            return String.format("%-22s %10.0f %8d %10.1fms %10.1fms %10.1fms %10.1fms%n", mode,
+                    (total.cached.size + total.search.size) / seconds, total.errors,
+                    total.cached.percentile(50), total.cached.percentile(99),
+                    total.search.percentile(50), total.search.percentile(99));
+        }
+    }
+
+    private ConfigurableApplicationContext start(String mode, String modeProperty) {
+        return new SpringApplicationBuilder(BookStoreApiAssessmentApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:load_" + mode.replaceAll("\\W", "") + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.format_sql=false",
+                        "bookstore.search.index.enabled=false",
+                        "springdoc.api-docs.enabled=false",
+                        "springdoc.swagger-ui.enabled=false",
+                        "logging.level.root=WARN",
+                        "logging.level.com.chiloanee.bookstoreapiassessment=WARN",
+                        "logging.level.com.chiloanee.bookstoreapiassessment.benchmark=INFO",
+                        modeProperty)
+                .run();
+    }
+
+    private Samples drive(String baseUrl, long deadline) {
+        Samples samples = new Samples();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            boolean search = random.nextInt(100) < SEARCH_PERCENT;
+            String url = search
+                    ? baseUrl + "/search?title=book" + random.nextInt(10)
+                    : baseUrl + "/" + (1 + random.nextInt(CATALOGUE_SIZE));
+            long start = System.nanoTime();
+            try {
+                int status = send(url);
+                if (status != 200) {
+                    samples.errors++;
+                    continue;
+                }
+            } catch (Exception e) {
+                samples.errors++;
+                continue;
+            }
+            (search ? samples.search : samples.cached).add(System.nanoTime() - start);
+        }
+        return samples;
+    }
+
+    /** Simulates a slow-database spike by parking most of the pool's connections. */
+    private Void holdConnections(DataSource dataSource) throws Exception {
+        Thread.sleep(SPIKE_START.toMillis());
+        List<Thread> holders = new ArrayList<>();
+        for (int i = 0; i < HELD_CONNECTIONS; i++) {
+            Thread holder = new Thread(() -> {
+                try (Connection ignored = dataSource.getConnection()) {
+                    Thread.sleep(SPIKE_LENGTH.toMillis());
+                } catch (Exception e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            holder.start();
+            holders.add(holder);
+        }
+        for (Thread holder : holders) {
+            holder.join();
+        }
+        return null;
+    }
+
+    private int send(String url) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30)).GET().build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static final class Samples {
+        private final Latencies cached = new Latencies();
+        private final Latencies search = new Latencies();
+        private int errors;
+
+        void merge(Samples other) {
+            cached.merge(other.cached);
+            search.merge(other.search);
+            errors += other.errors;
+        }
+    }
+
+    private static final class Latencies {
+        private long[] nanos = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            nanos[size++] = value;
+        }
+
+        void merge(Latencies other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.nanos[i]);
+            }
+        }
+
+        double percentile(int percentile) {
+            if (size == 0) {
+                return Double.NaN;
+            }
+            long[] sorted = Arrays.copyOf(nanos, size);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * size) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.chiloanee.bookstoreapiassessment.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+
+import com.chiloanee.bookstoreapiassessment.dto.BookResponseDto;
+import com.chiloanee.bookstoreapiassessment.dto.SlimPageDto;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bytes on the wire for a {@code GET /books} page in each negotiable
+ * representation, before and after gzip. Serialization time is measured by
+ * {@link PageSerializationBenchmark}. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@Slf4j
+class WireFormatSizeBenchmarkTest {
+
+    private static final int[] PAGE_SIZES = {10, 100, 1000};
+    private static final String[] FORMATS = {"json", "slim-json", "cbor"};
+
+    @Test
+    void compareBytesPerFormat() throws Exception {
+        StringBuilder report = new StringBuilder(String.format("%n%-10s %6s %12s %12s %8s%n",
+                "format", "rows", "raw (B)", "gzip (B)", "vs json"));
+        for (int size : PAGE_SIZES) {
+            Page<BookResponseDto> page = PageSerializationBenchmark.page(size);
+            long jsonBytes = 0;
+            for (String format : FORMATS) {
+                Object body = format.equals("json") ? page : SlimPageDto.of(page);
+                byte[] raw = PageSerializationBenchmark.mapper(format).writeValueAsBytes(body);
+                byte[] gzipped = PageSerializationBenchmark.gzip(raw);
+                if (format.equals("json")) {
+                    jsonBytes = raw.length;
+                } else {
+                    assertTrue(raw.length < jsonBytes, format + " should be smaller than the full JSON page");
+                }
+                report.append(String.format("%-10s %6d %12d %12d %7.0f%%%n",
+                        format, size, raw.length, gzipped.length, 100.0 * raw.length / jsonBytes));
+            }
+        }
+        log.info("Page size by wire format:{}", report);
+    }
+}
@@ -0,0 +1,119 @@
+package com.chiloanee.bookstoreapiassessment.cache;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import com.chiloanee.bookstoreapiassessment.dto.BookResponseDto;
+import com.chiloanee.bookstoreapiassessment.event.BookChangedEvent;
+
+class SearchResultCacheTest {
+
+    private final SearchResultCache cache = new SearchResultCache(true, DataSize.ofMegabytes(1));
+    private final Pageable pageable = PageRequest.of(0, 10);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void onBookChanging_ShouldTreatLikeWildcardsInFiltersLiterally() {
+        // Given
+        search("a_b");
+
+        // When
+        cache.onBookChanging(created(2L, "axb"));
+        search("a_b");
+
+        // Then
+        assertEquals(1, loads.get());
+
+        // When
+        cache.onBookChanging(created(3L, "The A_B Guide"));
+        search("a_b");
+
+        // Then
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void onBookChanging_InATransaction_ShouldInvalidateOnceItCommits() {
+        // Given
+        search("java");
+        search("kotlin");
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        cache.onBookChanging(created(2L, "Java Puzzlers"));
+
+        // Then
+        assertEquals(2, cache.size());
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void onBookChanging_WithManyChangesInATransaction_ShouldClearTheCacheOnCommit() {
+        // Given
+        search("java");
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        for (long id = 2; id < 2 + SearchResultCache.MAX_PRECISE_CHANGES + 1; id++) {
+            cache.onBookChanging(created(id, "Unrelated " + id));
+        }
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        // Then
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void onBookChanging_InATransactionThatRollsBack_ShouldKeepThePages() {
+        // Given
+        search("java");
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        cache.onBookChanging(created(2L, "Java Puzzlers"));
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // Then
+        assertEquals(1, cache.size());
+    }
+
+    private void search(String title) {
+        cache.get(title, null, pageable, () -> {
+            loads.incrementAndGet();
+            return page();
+        }, ids -> List.of());
+    }
+
+    private Page<BookResponseDto> page() {
+        return new PageImpl<>(List.of(new BookResponseDto(1L, "Title", "Author", "9780000000001", 0L)), pageable, 1);
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    private static BookChangedEvent created(Long id, String title) {
+        return new BookChangedEvent(BookChangedEvent.Type.CREATED, id, title, "Author", "9780000000001", 0L);
+    }
+}
@@ -0,0 +1,88 @@
+package com.chiloanee.bookstoreapiassessment.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.Test;
+
+class SegmentedLruCacheTest {
+
+    @Test
+    void get_ShouldCountHitsAndMisses() {
+        SegmentedLruCache<Long, String> cache = new SegmentedLruCache<>(10, 1);
+        cache.put(1L, "one");
+
+        assertEquals("one", cache.get(1L));
+        assertNull(cache.get(2L));
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    void put_BeyondCapacity_ShouldEvictAndStayBounded() {
+        SegmentedLruCache<Long, String> cache = new SegmentedLruCache<>(10, 1);
+        for (long i = 0; i < 100; i++) {
+            cache.put(i, "v" + i);
+        }
+
+        assertEquals(2, cache.size());
+        assertEquals(98, cache.evictionCount());
+    }
+
+    @Test
+    void scan_ShouldNotFlushFrequentlyUsedEntries() {
+        SegmentedLruCache<Long, String> cache = new SegmentedLruCache<>(10, 1);
+        for (long hot = 0; hot < 5; hot++) {
+            cache.put(hot, "hot");
+            cache.get(hot);
+        }
+        for (long cold = 100; cold < 1_000; cold++) {
+            cache.put(cold, "cold");
+        }
+
+        for (long hot = 0; hot < 5; hot++) {
+            assertNotNull(cache.get(hot));
+        }
+    }
+
+    @Test
+    void invalidate_ShouldRemoveFromEitherSegment() {
+        SegmentedLruCache<Long, String> cache = new SegmentedLruCache<>(10, 1);
+        cache.put(1L, "probation");
+        cache.put(2L, "protected");
+        cache.get(2L);
+
+        cache.invalidate(1L);
+        cache.invalidate(2L);
+
+        assertNull(cache.get(1L));
+        assertNull(cache.get(2L));
+    }
+
+    @Test
+    void put_WithWeigher_ShouldBoundTotalWeightAndDropOversizedEntries() {
+        SegmentedLruCache<Long, String> cache = new SegmentedLruCache<>(100, 1, String::length);
+        for (long i = 0; i < 50; i++) {
+            cache.put(i, "x".repeat(10));
+            cache.get(i);
+        }
+        cache.put(99L, "x".repeat(30));
+
+        assertEquals(100, cache.weight());
+        assertNull(cache.get(99L));
+    }
+
+    @Test
+    void invalidateIf_ShouldRemoveMatchingEntriesFromEitherSegment() {
+        SegmentedLruCache<Long, String> cache = new SegmentedLruCache<>(10, 1);
+        cache.put(1L, "java");
+        cache.get(1L);
+        cache.put(2L, "kotlin");
+        cache.put(3L, "java");
+
+        assertEquals(2, cache.invalidateIf((key, value) -> value.equals("java")));
+        assertNull(cache.get(1L));
+        assertNull(cache.get(3L));
+        assertEquals("kotlin", cache.get(2L));
+    }
+}
@@ -0,0 +1,90 @@
+package com.chiloanee.bookstoreapiassessment.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+    @Test
+    void execute_WithConcurrentCallersForOneKey_ShouldLoadOnce() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> flight.execute(1L, key -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return "book " + key;
+                })));
+            }
+            while (flight.ledCount() + flight.sharedCount() < callers) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("book 1", result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+            assertEquals(1, flight.ledCount());
+            assertEquals(callers - 1, flight.sharedCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_WhenTheLoadFails_ShouldRethrowToSharersAndNotKeepTheFailure() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>();
+        IllegalStateException failure = new IllegalStateException("database down");
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> leader = executor.submit(() -> flight.execute(1L, key -> {
+                await(release);
+                throw failure;
+            }));
+            while (flight.ledCount() == 0) {
+                Thread.sleep(5);
+            }
+            Future<IllegalStateException> sharer = executor.submit(() ->
+                    assertThrows(IllegalStateException.class, () -> flight.execute(1L, key -> "unused")));
+            while (flight.sharedCount() == 0) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            assertSame(failure, sharer.get(5, TimeUnit.SECONDS));
+            assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+            assertEquals("book 1", flight.execute(1L, key -> "book " + key));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.chiloanee.bookstoreapiassessment.cluster;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.util.unit.DataSize;
+
+import com.chiloanee.bookstoreapiassessment.cache.BookCache;
+import com.chiloanee.bookstoreapiassessment.cache.CatalogueVersionCache;
+import com.chiloanee.bookstoreapiassessment.cache.SearchResultCache;
+import com.chiloanee.bookstoreapiassessment.dto.BookChangeDto;
+import com.chiloanee.bookstoreapiassessment.dto.BookResponseDto;
+import com.chiloanee.bookstoreapiassessment.event.BookChangedEvent;
+import com.chiloanee.bookstoreapiassessment.outbox.BookChangeRelay;
+import com.chiloanee.bookstoreapiassessment.search.BookSearchIndex;
+import com.chiloanee.bookstoreapiassessment.service.impl.BookReadCoalescer;
+
+class ClusterInvalidationBusTest {
+
+    private Node nodeA;
+    private Node nodeB;
+
+    @BeforeEach
+    void setUp() {
+        LoopbackInvalidationTransport network = new LoopbackInvalidationTransport();
+        nodeA = new Node("a", network);
+        nodeB = new Node("b", network);
+    }
+
+    @Test
+    void onBookChanged_ShouldInvalidateOtherNodesAndKeepThemFromCachingOlderVersions() {
+        // Given
+        BookResponseDto original = book(0L, "Original");
+        nodeA.bookCache.get(1L, id -> original);
+        nodeB.bookCache.get(1L, id -> original);
+
+        // When
+        nodeA.bus.onBookChanged(change(BookChangedEvent.Type.UPDATED, "Revised", 1L));
+
+        // Then
+        assertSame(original, nodeA.bookCache.getIfPresent(1L)); // dropped by node a's own listeners, not the bus
+        assertNull(nodeB.bookCache.getIfPresent(1L));
+        assertEquals("Original", nodeB.bookCache.get(1L, id -> original).getTitle()); // a lagging replica
+        assertNull(nodeB.bookCache.getIfPresent(1L));
+        BookResponseDto revised = book(1L, "Revised");
+        nodeB.bookCache.get(1L, id -> revised);
+        assertSame(revised, nodeB.bookCache.getIfPresent(1L));
+    }
+
+    @Test
+    void receive_WithReorderedChanges_ShouldKeepTheNewestInTheSearchIndex() {
+        // When
+        nodeA.bus.onBookChanged(change(BookChangedEvent.Type.UPDATED, "Second Edition", 2L));
+        nodeA.bus.onBookChanged(change(BookChangedEvent.Type.UPDATED, "First Edition", 1L));
+
+        // Then
+        assertArrayEquals(new long[] {1L}, nodeB.bookSearchIndex.search("second", null));
+        assertArrayEquals(new long[0], nodeB.bookSearchIndex.search("first", null));
+
+        // When
+        nodeA.bus.onBookChanged(change(BookChangedEvent.Type.DELETED, "Second Edition", 2L));
+        nodeA.bus.onBookChanged(change(BookChangedEvent.Type.UPDATED, "Second Edition", 2L));
+
+        // Then
+        assertEquals(0, nodeB.bookSearchIndex.size());
+        nodeB.bookCache.get(1L, id -> book(2L, "Second Edition")); // a lagging replica
+        assertNull(nodeB.bookCache.getIfPresent(1L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void outboxTransport_ShouldDropOnlyTheSearchesAnUpdateTouchedAndSkipTheNodesOwnChanges() {
+        // Given
+        BookChangeRelay relay = mock(BookChangeRelay.class);
+        Node node = new Node("b", new OutboxInvalidationTransport(relay));
+        ArgumentCaptor<Consumer<List<BookChangeDto>>> outbox = ArgumentCaptor.forClass(Consumer.class);
+        verify(relay).listen(outbox.capture());
+        BookResponseDto original = book(0L, "Original");
+        BookResponseDto other = new BookResponseDto(2L, "Other", "Writer", "9780000000002", 0L);
+        node.bookCache.get(1L, id -> original);
+        assertTrue(loads(node, "original", original));
+        assertTrue(loads(node, "other", other));
+
+        // When
+        outbox.getValue().accept(List.of(outboxRow("b")));
+
+        // Then
+        assertSame(original, node.bookCache.getIfPresent(1L));
+        assertFalse(loads(node, "original", original));
+
+        // When
+        outbox.getValue().accept(List.of(outboxRow("a")));
+
+        // Then
+        assertNull(node.bookCache.getIfPresent(1L));
+        assertTrue(loads(node, "original", original));
+        assertFalse(loads(node, "other", other));
+    }
+
+    private static BookChangeDto outboxRow(String origin) {
+        return new BookChangeDto(1L, 1L, BookChangedEvent.Type.UPDATED, "Revised", "Author", "9780000000001", 1L,
+                Instant.now(), "Original", "Author", origin);
+    }
+
+    private static boolean loads(Node node, String title, BookResponseDto match) {
+        AtomicBoolean loaded = new AtomicBoolean();
+        node.searchResultCache.get(title, null, PageRequest.of(0, 10), () -> {
+            loaded.set(true);
+            return new PageImpl<>(List.of(match));
+        }, ids -> List.of(match));
+        return loaded.get();
+    }
+
+    private static BookChangedEvent change(BookChangedEvent.Type type, String title, Long version) {
+        return new BookChangedEvent(type, 1L, title, "Author", "9780000000001", version);
+    }
+
+    private static BookResponseDto book(Long version, String title) {
+        return new BookResponseDto(1L, title, "Author", "9780000000001", version);
+    }
+
+    private static final class Node {
+
+        private final BookCache bookCache = new BookCache(true, 100);
+        private final BookSearchIndex bookSearchIndex = new BookSearchIndex(null, true, 100);
+        private final SearchResultCache searchResultCache = new SearchResultCache(true, DataSize.ofMegabytes(1));
+        private final ClusterInvalidationBus bus;
+
+        private Node(String nodeId, InvalidationTransport transport) {
+            bus = new ClusterInvalidationBus(transport, bookCache, new CatalogueVersionCache(),
+                    searchResultCache, bookSearchIndex,
+                    new BookReadCoalescer(true), nodeId);
+            bus.start();
+        }
+    }
+}
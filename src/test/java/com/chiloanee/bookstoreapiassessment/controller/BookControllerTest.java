@@ -1,12 +1,23 @@
 package com.chiloanee.bookstoreapiassessment.controller;
 
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
 import java.util.Arrays;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -14,18 +25,25 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.CannotCreateTransactionException;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.chiloanee.bookstoreapiassessment.dto.BookRequestDto;
 import com.chiloanee.bookstoreapiassessment.dto.BookResponseDto;
+import com.chiloanee.bookstoreapiassessment.dto.CursorPageDto;
 import com.chiloanee.bookstoreapiassessment.exception.BookNotFoundException;
+import com.chiloanee.bookstoreapiassessment.exception.ServiceOverloadedException;
+import com.chiloanee.bookstoreapiassessment.outbox.BookChangeRelay;
+import com.chiloanee.bookstoreapiassessment.repository.CatalogueVersion;
 import com.chiloanee.bookstoreapiassessment.service.BookService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -38,6 +56,9 @@ class BookControllerTest {
     @MockBean
     private BookService bookService;
 
+    @MockBean
+    private BookChangeRelay bookChangeRelay;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -55,6 +76,9 @@ class BookControllerTest {
         bookResponseDto.setTitle("Test Book");
         bookResponseDto.setAuthor("Test Author");
         bookResponseDto.setIsbn("9780306406157");
+        bookResponseDto.setVersion(0L);
+
+        when(bookService.getCatalogueVersion()).thenReturn(new CatalogueVersion(1, 1));
     }
 
     @Test
@@ -101,6 +125,107 @@ class BookControllerTest {
                 .andExpect(jsonPath("$.isbn").value("9780306406157"));
     }
 
+    @Test
+    void getBookById_WithCurrentETag_ShouldReturnNotModifiedWithoutLoadingTheBook() throws Exception {
+        // Given
+        when(bookService.getBookVersion(1L)).thenReturn(3L);
+
+        // When & Then
+        mockMvc.perform(get("/books/1").header("If-None-Match", "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3\""));
+        verify(bookService, never()).getBookById(anyLong());
+    }
+
+    @Test
+    void updateBook_WithIfMatch_ShouldPassTheExpectedVersionToTheService() throws Exception {
+        // Given
+        when(bookService.updateBook(eq(1L), any(BookRequestDto.class), eq(Set.of(3L)))).thenReturn(bookResponseDto);
+
+        // When & Then
+        mockMvc.perform(put("/books/1")
+                .header("If-Match", "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(bookRequestDto)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""));
+    }
+
+    @Test
+    void updateBook_WithTheCborETag_ShouldPassTheExpectedVersionToTheService() throws Exception {
+        // Given
+        when(bookService.updateBook(eq(1L), any(BookRequestDto.class), eq(Set.of(3L)))).thenReturn(bookResponseDto);
+
+        // When & Then
+        mockMvc.perform(put("/books/1")
+                .header("If-Match", "\"3-cbor\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(bookRequestDto)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""));
+    }
+
+    @Test
+    void updateBook_WithSeveralIfMatchTags_ShouldPassEveryStrongVersionToTheService() throws Exception {
+        // Given
+        when(bookService.updateBook(eq(1L), any(BookRequestDto.class), eq(Set.of(3L, 4L)))).thenReturn(bookResponseDto);
+
+        // When & Then
+        mockMvc.perform(put("/books/1")
+                .header("If-Match", "W/\"2\", \"3\", \"4-cbor\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(bookRequestDto)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""));
+    }
+
+    @Test
+    void updateBook_WithWeakIfMatch_ShouldReturnPreconditionFailed() throws Exception {
+        // When & Then
+        mockMvc.perform(put("/books/1")
+                .header("If-Match", "W/\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(bookRequestDto)))
+                .andExpect(status().isPreconditionFailed());
+        verify(bookService, never()).updateBook(anyLong(), any(), any());
+    }
+
+    @Test
+    void getBookById_WhenServiceIsOverloaded_ShouldReturnServiceUnavailableWithRetryAfter() throws Exception {
+        // Given
+        when(bookService.getBookById(1L)).thenThrow(new ServiceOverloadedException("Too many concurrent requests", 2));
+
+        // When & Then
+        mockMvc.perform(get("/books/1"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"))
+                .andExpect(jsonPath("$.status").value(503));
+    }
+
+    @Test
+    void getBookById_WhenThePoolTimesOut_ShouldReturnServiceUnavailable() throws Exception {
+        // Given
+        when(bookService.getBookById(1L)).thenThrow(new CannotCreateTransactionException("Could not open JPA EntityManager",
+                new SQLTransientConnectionException("Connection is not available, request timed out after 250ms")));
+
+        // When & Then
+        mockMvc.perform(get("/books/1"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
+    @Test
+    void getBookById_WhenTheDatabaseIsDown_ShouldReturnInternalServerError() throws Exception {
+        // Given
+        when(bookService.getBookById(1L)).thenThrow(new CannotCreateTransactionException("Could not open JPA EntityManager",
+                new SQLNonTransientConnectionException("Connection refused")));
+
+        // When & Then
+        mockMvc.perform(get("/books/1"))
+                .andExpect(status().isInternalServerError())
+                .andExpect(header().doesNotExist("Retry-After"));
+    }
+
     @Test
     void getBookById_WhenBookNotExists_ShouldReturnNotFound() throws Exception {
         // Given
@@ -114,7 +239,7 @@ class BookControllerTest {
     @Test
     void updateBook_WhenBookExists_ShouldReturnUpdatedBook() throws Exception {
         // Given
-        when(bookService.updateBook(eq(1L), any(BookRequestDto.class))).thenReturn(bookResponseDto);
+        when(bookService.updateBook(eq(1L), any(BookRequestDto.class), isNull())).thenReturn(bookResponseDto);
 
         // When & Then
         mockMvc.perform(put("/books/1")
@@ -154,4 +279,87 @@ class BookControllerTest {
                 .andExpect(jsonPath("$.content").isArray())
                 .andExpect(jsonPath("$.content[0].id").value(1L));
     }
+
+    @Test
+    void getAllBooks_AcceptingSlimJson_ShouldOmitPageableAndSort() throws Exception {
+        // Given
+        Page<BookResponseDto> page = new PageImpl<>(Arrays.asList(bookResponseDto), PageRequest.of(2, 10), 21);
+        when(bookService.getAllBooks(any())).thenReturn(page);
+
+        // When & Then
+        mockMvc.perform(get("/books").param("page", "2").accept(PageEnvelopeAdvice.SLIM_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", PageEnvelopeAdvice.SLIM_JSON_VALUE))
+                .andExpect(header().string("Vary", "Accept"))
+                .andExpect(jsonPath("$.content[0].id").value(1L))
+                .andExpect(jsonPath("$.page").value(2))
+                .andExpect(jsonPath("$.size").value(10))
+                .andExpect(jsonPath("$.totalElements").value(21))
+                .andExpect(jsonPath("$.totalPages").value(3))
+                .andExpect(jsonPath("$.pageable").doesNotExist())
+                .andExpect(jsonPath("$.sort").doesNotExist());
+    }
+
+    @Test
+    void getAllBooks_ShouldTagTheCatalogueETagPerRepresentation() throws Exception {
+        // Given
+        Page<BookResponseDto> page = new PageImpl<>(Arrays.asList(bookResponseDto), PageRequest.of(0, 10), 1);
+        when(bookService.getAllBooks(any())).thenReturn(page);
+
+        // When & Then
+        mockMvc.perform(get("/books"))
+                .andExpect(header().string("ETag", "W/\"1-1\""));
+        mockMvc.perform(get("/books").accept(PageEnvelopeAdvice.SLIM_JSON))
+                .andExpect(header().string("ETag", "W/\"1-1-slim\""));
+        mockMvc.perform(get("/books").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string("ETag", "W/\"1-1-cbor\""));
+        mockMvc.perform(get("/books").accept(MediaType.APPLICATION_CBOR).header("If-None-Match", "W/\"1-1\""))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/books").accept(MediaType.APPLICATION_CBOR).header("If-None-Match", "W/\"1-1-cbor\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("Vary", "Accept"));
+    }
+
+    @Test
+    void getAllBooks_WithSeveralSortFields_ShouldAppendIdAsTiebreaker() throws Exception {
+        // Given
+        when(bookService.getAllBooks(any())).thenReturn(new PageImpl<>(Arrays.asList(bookResponseDto)));
+
+        // When & Then
+        mockMvc.perform(get("/books").param("sortBy", "author,title:desc"))
+                .andExpect(status().isOk());
+        verify(bookService).getAllBooks(argThat(pageable -> pageable.getSort().equals(Sort.by(
+                Sort.Order.asc("author"), Sort.Order.desc("title"), Sort.Order.desc("id")))));
+    }
+
+    @Test
+    void getAllBooks_WithUnknownSortField_ShouldReturnBadRequestWithoutQuerying() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/books").param("sortBy", "price"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Cannot sort by 'price', expected one of id, title, author, isbn"));
+        verifyNoInteractions(bookService);
+    }
+
+    @Test
+    void getAllBooks_WithCursor_ShouldReturnCursorPage() throws Exception {
+        // Given
+        CursorPageDto<BookResponseDto> page = new CursorPageDto<>(Arrays.asList(bookResponseDto), 1, "next-token", null);
+        when(bookService.getBooksAfter(eq(""), anyInt(), eq("id"), eq("asc"), anyBoolean())).thenReturn(page);
+
+        // When & Then
+        mockMvc.perform(get("/books").param("cursor", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(1L))
+                .andExpect(jsonPath("$.next").value("next-token"))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+    }
+
+    @Test
+    void exportBooks_WithUnsupportedFormat_ShouldReturnBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/books/export").param("format", "xml"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Unsupported export format: xml (expected ndjson or csv)"));
+    }
 }
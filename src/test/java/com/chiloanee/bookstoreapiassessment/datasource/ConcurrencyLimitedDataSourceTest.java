@@ -0,0 +1,57 @@
+package com.chiloanee.bookstoreapiassessment.datasource;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConcurrencyLimitedDataSourceTest {
+
+    @Test
+    void getConnection_BeyondLimit_ShouldTimeOutUntilAConnectionIsClosed() throws Exception {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(target, 2, 10);
+
+        Connection first = dataSource.getConnection();
+        dataSource.getConnection();
+        assertEquals(2, dataSource.getActiveConnections());
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        first.close();
+        first.close();
+        assertEquals(1, dataSource.getActiveConnections());
+        dataSource.getConnection();
+        assertEquals(2, dataSource.getActiveConnections());
+    }
+
+    @Test
+    void getConnection_WhenTargetFails_ShouldReturnThePermit() throws Exception {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenThrow(new SQLTransientConnectionException("pool exhausted"));
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(target, 1, 10);
+
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        assertEquals(0, dataSource.getActiveConnections());
+    }
+
+    @Test
+    void connection_ShouldDelegateCallsToTheTargetConnection() throws Exception {
+        DataSource target = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(target.getConnection()).thenReturn(connection);
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(target, 1, 10);
+
+        dataSource.getConnection().prepareStatement("SELECT 1");
+
+        verify(connection).prepareStatement(any());
+    }
+}
@@ -0,0 +1,61 @@
+package com.chiloanee.bookstoreapiassessment.datasource;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReadReplicaDataSourceTest {
+
+    @Test
+    void getConnection_ShouldSkipAFailedReplicaUntilItsNextHealthCheck() throws Exception {
+        DataSource primary = mock(DataSource.class);
+        DataSource healthy = mock(DataSource.class);
+        DataSource failing = mock(DataSource.class);
+        Connection primaryConnection = mock(Connection.class);
+        Connection healthyConnection = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(healthy.getConnection()).thenReturn(healthyConnection);
+        when(failing.getConnection()).thenThrow(new SQLTransientConnectionException("replica down"));
+        ReadReplicaDataSource.Replica down = new ReadReplicaDataSource.Replica("replica-2", failing);
+        ReadReplicaDataSource dataSource = new ReadReplicaDataSource(primary,
+                List.of(new ReadReplicaDataSource.Replica("replica-1", healthy), down), Duration.ofSeconds(1), null);
+
+        for (int i = 0; i < 4; i++) {
+            assertSame(healthyConnection, dataSource.getConnection());
+        }
+        assertFalse(down.isHealthy());
+        assertEquals(4, dataSource.getReplicaReads());
+
+        doReturn(mock(Connection.class)).when(failing).getConnection();
+        dataSource.checkReplicas();
+        assertTrue(down.isHealthy());
+    }
+
+    @Test
+    void getConnection_RightAfterAWrite_ShouldUseThePrimary() throws Exception {
+        DataSource primary = mock(DataSource.class);
+        DataSource replica = mock(DataSource.class);
+        Connection primaryConnection = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(mock(Connection.class));
+        ReadReplicaDataSource dataSource = new ReadReplicaDataSource(primary,
+                List.of(new ReadReplicaDataSource.Replica("replica-1", replica)), Duration.ofMinutes(1), null);
+
+        dataSource.recordWrite();
+
+        assertSame(primaryConnection, dataSource.getConnection());
+        assertEquals(1, dataSource.getPrimaryReads());
+    }
+}
@@ -0,0 +1,39 @@
+package com.chiloanee.bookstoreapiassessment.datasource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StatementMetricsDataSourceTest {
+
+    @Test
+    void executedStatements_ShouldBeCountedOnlyWhileRecording() throws Exception {
+        DataSource target = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        StatementMetricsDataSource dataSource = new StatementMetricsDataSource(target);
+
+        dataSource.getConnection().prepareStatement("SELECT 1").executeQuery();
+        StatementMetricsDataSource.Recording recording = StatementMetricsDataSource.record();
+        try (recording) {
+            PreparedStatement recorded = dataSource.getConnection().prepareStatement("SELECT 1");
+            recorded.setLong(1, 1L);
+            recorded.executeQuery();
+            recorded.executeUpdate();
+        }
+        dataSource.getConnection().prepareStatement("SELECT 1").executeQuery();
+
+        assertEquals(2, recording.getStatements());
+        verify(statement).setLong(1, 1L);
+    }
+}
@@ -0,0 +1,95 @@
+package com.chiloanee.bookstoreapiassessment.integration;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.chiloanee.bookstoreapiassessment.isbn.FeistelIsbnGenerator;
+
+/**
+ * Starts the application on a database in the shape Hibernate's
+ * {@code ddl-auto} gave it before Flyway: IDENTITY ids, no {@code version}
+ * column, no {@code isbn_blocks} and no {@code books_seq}, and ISBNs that the
+ * generator may also reach.
+ */
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties", properties =
+        "spring.datasource.url=" + BaselineUpgradeIntegrationTest.URL)
+@AutoConfigureMockMvc
+@DirtiesContext
+class BaselineUpgradeIntegrationTest {
+
+    static final String URL =
+            "jdbc:h2:mem:baseline_upgrade;MODE=MYSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1";
+
+    private static final JdbcTemplate database = new JdbcTemplate(new DriverManagerDataSource(URL, "sa", ""));
+
+    // The ISBN the generator hands out first with the default key; a baseline book already carries it
+    private static String firstGeneratedIsbn;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeAll
+    static void createBaselineSchema() {
+        FeistelIsbnGenerator generator = new FeistelIsbnGenerator(blockSize -> 0L, isbns -> Set.of(), 10_000,
+                Duration.ofSeconds(5), 6364136223846793005L);
+        firstGeneratedIsbn = generator.nextIsbn();
+        generator.stop();
+        database.execute("CREATE TABLE books (id BIGINT GENERATED BY DEFAULT AS IDENTITY, "
+                + "author VARCHAR(50) NOT NULL, isbn VARCHAR(13) NOT NULL UNIQUE, title VARCHAR(100) NOT NULL, "
+                + "PRIMARY KEY (id))");
+        database.update("INSERT INTO books (author, isbn, title) VALUES "
+                + "('Baseline Author', '9780306406157', 'Baseline One'), "
+                + "('Baseline Author', ?, 'Baseline Two')", firstGeneratedIsbn);
+    }
+
+    @AfterAll
+    static void dropDatabase() {
+        database.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void startup_OnABaselineSchema_ShouldUpgradeItAndKeepItsBooks() throws Exception {
+        List<String> applied = database.queryForList(
+                "SELECT \"version\" FROM \"flyway_schema_history\" WHERE \"success\"", String.class);
+        assertTrue(applied.containsAll(List.of("0", "1")), applied::toString);
+
+        mockMvc.perform(get("/books/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""))
+                .andExpect(jsonPath("$.title").value("Baseline One"));
+
+        mockMvc.perform(post("/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"Upgraded Title\",\"author\":\"Upgraded Author\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(greaterThan(2)))
+                .andExpect(jsonPath("$.isbn").value(not(firstGeneratedIsbn)));
+
+        mockMvc.perform(get("/books"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(3));
+    }
+}
@@ -1,27 +1,59 @@
 package com.chiloanee.bookstoreapiassessment.integration;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.chiloanee.bookstoreapiassessment.dto.BookChangeDto;
 import com.chiloanee.bookstoreapiassessment.dto.BookRequestDto;
 import com.chiloanee.bookstoreapiassessment.dto.BookResponseDto;
 import com.chiloanee.bookstoreapiassessment.entity.Book;
+import com.chiloanee.bookstoreapiassessment.event.BookChangedEvent;
+import com.chiloanee.bookstoreapiassessment.outbox.BookChangeRelay;
+import com.chiloanee.bookstoreapiassessment.outbox.BookChangeSink;
+import com.chiloanee.bookstoreapiassessment.repository.BookCounter;
 import com.chiloanee.bookstoreapiassessment.repository.BookRepository;
+import com.chiloanee.bookstoreapiassessment.service.BookService;
+import com.chiloanee.bookstoreapiassessment.service.impl.GroupCommitBookWriter;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+
+import jakarta.persistence.EntityManager;
 
 @SpringBootTest
 @TestPropertySource(locations = "classpath:application-test.properties")
@@ -35,9 +67,61 @@ class BookControllerIntegrationTest {
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private BookCounter bookCounter;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private GroupCommitBookWriter groupCommitBookWriter;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private RecordingBookChangeSink recordingSink;
+
+    @Autowired
+    private BookChangeRelay bookChangeRelay;
+
+    @TestConfiguration
+    static class BookChangeSinkConfig {
+
+        @Bean
+        RecordingBookChangeSink recordingBookChangeSink() {
+            return new RecordingBookChangeSink();
+        }
+    }
+
+    static class RecordingBookChangeSink implements BookChangeSink {
+
+        private final List<BookChangeDto> published = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String name() {
+            return "integration-test";
+        }
+
+        @Override
+        public void publish(List<BookChangeDto> changes) {
+            published.addAll(changes);
+        }
+
+        List<BookChangeDto> forBook(Long bookId) {
+            return published.stream().filter(change -> bookId.equals(change.getBookId())).toList();
+        }
+    }
+
     @Test
     void createBook_ShouldCreateAndReturnBook() throws Exception {
         // Given
@@ -88,4 +172,560 @@ class BookControllerIntegrationTest {
                 .andExpect(jsonPath("$.content[0].title").exists())
                 .andExpect(jsonPath("$.content[1].title").exists());
     }
+
+    @Test
+    void getBooksByIds_ShouldReturnBooksInRequestOrderAndMarkMissingIds() throws Exception {
+        // Given
+        Book first = new Book();
+        first.setTitle("Batch One");
+        first.setAuthor("Batch Author");
+        first = bookRepository.save(first);
+        Book second = new Book();
+        second.setTitle("Batch Two");
+        second.setAuthor("Batch Author");
+        second = bookRepository.save(second);
+        long missing = second.getId() + 1000;
+
+        // When & Then
+        mockMvc.perform(post("/books/batch-get")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\": [" + second.getId() + ", " + missing + ", " + first.getId() + "]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].book.title").value("Batch Two"))
+                .andExpect(jsonPath("$.items[1].id").value(missing))
+                .andExpect(jsonPath("$.items[1].found").value(false))
+                .andExpect(jsonPath("$.items[1].book").doesNotExist())
+                .andExpect(jsonPath("$.items[2].book.title").value("Batch One"))
+                .andExpect(jsonPath("$.found").value(2))
+                .andExpect(jsonPath("$.notFound").value(1));
+
+        mockMvc.perform(post("/books/batch-get")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\": []}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getAllBooksByCursor_ShouldWalkEveryBookInSortOrder() throws Exception {
+        // Given
+        String[] titles = {"Delta", "Alpha", "Charlie", "Alpha", "Bravo"};
+        for (String title : titles) {
+            Book book = new Book();
+            book.setTitle(title);
+            book.setAuthor("Cursor Author");
+            bookRepository.save(book);
+        }
+
+        // When
+        List<String> seen = new ArrayList<>();
+        String cursor = "";
+        do {
+            String body = mockMvc.perform(get("/books")
+                    .param("cursor", cursor)
+                    .param("size", "2")
+                    .param("sortBy", "title"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalElements").doesNotExist())
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode page = objectMapper.readTree(body);
+            page.get("content").forEach(book -> seen.add(book.get("title").asText()));
+            cursor = page.hasNonNull("next") ? page.get("next").asText() : null;
+        } while (cursor != null);
+
+        // Then
+        assertEquals(List.of("Alpha", "Alpha", "Bravo", "Charlie", "Delta"), seen);
+    }
+
+    @Test
+    void getAllBooksByCursor_WithCursorForAnotherSort_ShouldReturnBadRequest() throws Exception {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            Book book = new Book();
+            book.setTitle("Book " + i);
+            book.setAuthor("Author " + i);
+            bookRepository.save(book);
+        }
+        String body = mockMvc.perform(get("/books").param("cursor", "").param("size", "1").param("sortBy", "title"))
+                .andReturn().getResponse().getContentAsString();
+        String next = objectMapper.readTree(body).get("next").asText();
+
+        // When & Then
+        mockMvc.perform(get("/books").param("cursor", next).param("sortBy", "author"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/books").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // the writer thread commits on its own
+    void createBookAsync_ShouldRespondOnceTheBookIsCommitted() throws Exception {
+        // Given
+        BookRequestDto bookRequestDto = new BookRequestDto();
+        bookRequestDto.setTitle("Queued Book");
+        bookRequestDto.setAuthor("Queued Author");
+
+        // When
+        MvcResult queued = mockMvc.perform(post("/books/async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(bookRequestDto)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String responseContent = mockMvc.perform(asyncDispatch(queued))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("ETag", "\"0\""))
+                .andExpect(jsonPath("$.isbn").isNotEmpty())
+                .andReturn().getResponse().getContentAsString();
+
+        // Then
+        BookResponseDto created = objectMapper.readValue(responseContent, BookResponseDto.class);
+        try {
+            assertEquals("Queued Book", bookRepository.findById(created.getId()).orElseThrow().getTitle());
+        } finally {
+            bookRepository.deleteById(created.getId());
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // the writer thread commits on its own
+    void createBookAsync_WithManyQueuedCreates_ShouldCommitThemTogether() throws Exception {
+        // Given
+        long batchesBefore = groupCommitBookWriter.batchCount();
+        List<CompletableFuture<BookResponseDto>> futures = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            BookRequestDto bookRequestDto = new BookRequestDto();
+            bookRequestDto.setTitle("Queued Book " + i);
+            bookRequestDto.setAuthor("Queued Author");
+            futures.add(bookService.createBookAsync(bookRequestDto));
+        }
+        List<Long> ids = new ArrayList<>();
+        for (CompletableFuture<BookResponseDto> future : futures) {
+            ids.add(future.get(10, TimeUnit.SECONDS).getId());
+        }
+
+        // Then
+        try {
+            assertEquals(20, bookRepository.findAllById(ids).size());
+            assertTrue(groupCommitBookWriter.batchCount() - batchesBefore < 20);
+        } finally {
+            bookRepository.deleteAllById(ids);
+        }
+    }
+
+    @Test
+    void getBookById_AfterUpdate_ShouldNotServeStaleCachedBook() throws Exception {
+        // Given
+        Book book = new Book();
+        book.setTitle("Original Title");
+        book.setAuthor("Original Author");
+        Long id = bookRepository.save(book).getId();
+        mockMvc.perform(get("/books/{id}", id))
+                .andExpect(jsonPath("$.title").value("Original Title"));
+
+        BookRequestDto update = new BookRequestDto();
+        update.setTitle("Updated Title");
+        update.setAuthor("Updated Author");
+
+        // When
+        mockMvc.perform(put("/books/{id}", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isOk());
+        entityManager.flush(); // the test transaction never commits, so flush as the commit would
+
+        // Then
+        mockMvc.perform(get("/books/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Updated Title"))
+                .andExpect(jsonPath("$.author").value("Updated Author"));
+    }
+
+    @Test
+    void getBookById_WithETag_ShouldRevalidateAndGuardUpdates() throws Exception {
+        // Given
+        Book book = new Book();
+        book.setTitle("Versioned Title");
+        book.setAuthor("Versioned Author");
+        Long id = bookRepository.save(book).getId();
+        String eTag = mockMvc.perform(get("/books/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").doesNotExist())
+                .andReturn().getResponse().getHeader("ETag");
+        BookRequestDto update = new BookRequestDto();
+        update.setTitle("Updated Title");
+        update.setAuthor("Updated Author");
+
+        // When & Then
+        mockMvc.perform(get("/books/{id}", id).header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        String updatedETag = mockMvc.perform(put("/books/{id}", id)
+                .header("If-Match", eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(eTag, updatedETag);
+
+        mockMvc.perform(put("/books/{id}", id)
+                .header("If-Match", eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(get("/books/{id}", id).header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", updatedETag))
+                .andExpect(jsonPath("$.title").value("Updated Title"));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // the catalogue version moves when a write commits
+    void getAllBooks_WithCatalogueETag_ShouldReturnNotModifiedUntilABookChanges() throws Exception {
+        // Given
+        Book book = new Book();
+        book.setTitle("Listed Title");
+        book.setAuthor("Listed Author");
+        book = bookRepository.save(book);
+        Book another = null;
+
+        try {
+            String eTag = mockMvc.perform(get("/books"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader("ETag");
+
+            // When & Then
+            mockMvc.perform(get("/books").header("If-None-Match", eTag))
+                    .andExpect(status().isNotModified());
+            mockMvc.perform(get("/books/search").param("title", "listed").header("If-None-Match", eTag))
+                    .andExpect(status().isNotModified());
+
+            book.setTitle("Relisted Title");
+            book = bookRepository.save(book);
+            String updatedETag = mockMvc.perform(get("/books").header("If-None-Match", eTag))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader("ETag");
+            assertNotEquals(eTag, updatedETag);
+
+            another = new Book();
+            another.setTitle("Another Title");
+            another.setAuthor("Listed Author");
+            another = bookRepository.save(another);
+
+            mockMvc.perform(get("/books/search").param("author", "listed author").header("If-None-Match", updatedETag))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content", hasSize(2)));
+        } finally {
+            bookRepository.delete(book);
+            if (another != null) {
+                bookRepository.delete(another);
+            }
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // bulk inserts commit their own chunks
+    void bulkCreateBooks_ShouldInsertEveryBookAndReportThroughput() throws Exception {
+        // Given
+        long before = bookRepository.count();
+        String body = """
+                {"books": [
+                    {"title": "Bulk One", "author": "Bulk Author"},
+                    {"title": "Bulk Two", "author": "Bulk Author"},
+                    {"title": "Bulk Three", "author": "Bulk Author"}
+                ]}
+                """;
+
+        // When & Then
+        mockMvc.perform(post("/books/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.rowsInserted").value(3))
+                .andExpect(jsonPath("$.rowsPerSecond").isNumber());
+
+        assertEquals(before + 3, bookRepository.count());
+        assertEquals(bookRepository.count(), bookCounter.total());
+        bookRepository.deleteAll(bookRepository.findAll().stream()
+                .filter(book -> book.getAuthor().equals("Bulk Author"))
+                .toList());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // the count is applied when a write commits
+    void getAllBooks_TotalShouldTrackCommittedCreatesAndDeletes() throws Exception {
+        // Given
+        List<Long> ids = new ArrayList<>();
+        for (String title : new String[] {"Counted One", "Counted Two"}) {
+            BookRequestDto request = new BookRequestDto();
+            request.setTitle(title);
+            request.setAuthor("Counted Author");
+            String created = mockMvc.perform(post("/books")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isCreated())
+                    .andReturn().getResponse().getContentAsString();
+            ids.add(objectMapper.readValue(created, BookResponseDto.class).getId());
+        }
+
+        try {
+            // When & Then
+            mockMvc.perform(get("/books"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalElements").value(bookRepository.count()));
+            mockMvc.perform(get("/books/search").param("author", "counted author").param("count", "approximate"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content", hasSize(2)))
+                    .andExpect(jsonPath("$.totalElements").value(2))
+                    .andExpect(jsonPath("$.totalCapped").value(false))
+                    .andExpect(jsonPath("$.hasNext").value(false));
+        } finally {
+            for (Long id : ids) {
+                mockMvc.perform(delete("/books/{id}", id)).andExpect(status().isNoContent());
+            }
+        }
+        assertEquals(bookRepository.count(), bookCounter.total());
+    }
+
+    @Test
+    void bulkCreateBooks_WithInvalidBook_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(post("/books/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"books\": [{\"title\": \"\", \"author\": \"Bulk Author\"}]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.validationErrors['books[0].title']").exists());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // the export streams on another thread
+    void exportBooks_ShouldStreamEveryBookAsNdjsonAndCsv() throws Exception {
+        // Given
+        List<Book> books = new ArrayList<>();
+        for (String title : new String[] {"Export One", "Export, \"Two\""}) {
+            Book book = new Book();
+            book.setTitle(title);
+            book.setAuthor("Export Author");
+            books.add(book);
+        }
+        books = bookRepository.saveAll(books);
+
+        try {
+            // When
+            MvcResult ndjson = mockMvc.perform(get("/books/export"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            String[] lines = mockMvc.perform(asyncDispatch(ndjson))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType("application/x-ndjson"))
+                    .andReturn().getResponse().getContentAsString().split("\n");
+
+            MvcResult csv = mockMvc.perform(get("/books/export").param("format", "csv"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            String csvBody = mockMvc.perform(asyncDispatch(csv))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("Content-Disposition", "attachment; filename=\"books.csv\""))
+                    .andReturn().getResponse().getContentAsString();
+
+            // Then
+            assertEquals(2, lines.length);
+            BookResponseDto first = objectMapper.readValue(lines[0], BookResponseDto.class);
+            assertEquals(books.get(0).getId(), first.getId());
+            assertEquals("Export One", first.getTitle());
+            assertEquals("Export, \"Two\"", objectMapper.readValue(lines[1], BookResponseDto.class).getTitle());
+            assertEquals("id,title,author,isbn\r\n"
+                    + books.get(0).getId() + ",Export One,Export Author," + books.get(0).getIsbn() + "\r\n"
+                    + books.get(1).getId() + ",\"Export, \"\"Two\"\"\",Export Author," + books.get(1).getIsbn() + "\r\n",
+                    csvBody);
+        } finally {
+            bookRepository.deleteAll(books);
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // changes reach the outbox when they commit
+    void bookChanges_ShouldStreamCommittedChangesInOrder() throws Exception {
+        // Given
+        MvcResult stream = mockMvc.perform(get("/books/changes"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        BookRequestDto request = new BookRequestDto();
+        request.setTitle("Outbox Book");
+        request.setAuthor("Outbox Author");
+
+        // When
+        String created = mockMvc.perform(post("/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        Long id = objectMapper.readValue(created, BookResponseDto.class).getId();
+        request.setTitle("Outbox Book, Revised");
+        mockMvc.perform(put("/books/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/books/{id}", id)).andExpect(status().isNoContent());
+        transactionTemplate.executeWithoutResult(status -> {
+            Book rolledBack = new Book();
+            rolledBack.setTitle("Outbox Rolled Back");
+            rolledBack.setAuthor("Outbox Author");
+            bookRepository.saveAndFlush(rolledBack);
+            status.setRollbackOnly();
+        });
+
+        // Then
+        assertEquals(List.of("CREATED", "UPDATED", "DELETED"), jdbcTemplate.queryForList(
+                "SELECT change_type FROM book_changes WHERE book_id = ? ORDER BY id", String.class, id));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM book_changes WHERE title = 'Outbox Rolled Back'", Integer.class));
+
+        List<BookChangeDto> streamed = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while ((streamed.size() < 3 || recordingSink.forBook(id).size() < 3) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            streamed.clear();
+            String body = stream.getResponse().getContentAsString();
+            // only events already terminated by a blank line are complete
+            for (String event : body.substring(0, Math.max(0, body.lastIndexOf("\n\n"))).split("\n\n")) {
+                String eventId = null;
+                for (String line : event.split("\n")) {
+                    if (line.startsWith("id:")) {
+                        eventId = line.substring(3);
+                    } else if (line.startsWith("data:")) {
+                        BookChangeDto change = objectMapper.readValue(line.substring(5), BookChangeDto.class);
+                        assertEquals(Long.toString(change.getChangeId()), eventId);
+                        if (id.equals(change.getBookId())) {
+                            streamed.add(change);
+                        }
+                    }
+                }
+            }
+        }
+        for (List<BookChangeDto> changes : List.of(streamed, recordingSink.forBook(id))) {
+            assertEquals(List.of(BookChangedEvent.Type.CREATED, BookChangedEvent.Type.UPDATED, BookChangedEvent.Type.DELETED),
+                    changes.stream().map(BookChangeDto::getType).toList());
+            assertTrue(changes.get(0).getChangeId() < changes.get(1).getChangeId());
+            assertTrue(changes.get(1).getChangeId() < changes.get(2).getChangeId());
+            assertEquals("Outbox Book, Revised", changes.get(1).getTitle());
+            assertEquals(changes.get(0).getVersion() + 1, changes.get(1).getVersion());
+        }
+        assertTrue(jdbcTemplate.queryForObject("SELECT last_change_id FROM book_change_offsets WHERE consumer = ?",
+                Long.class, recordingSink.name()) >= streamed.get(2).getChangeId());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // the relay only reads committed changes
+    void bookChanges_CommittedAfterTheRelayMovedPastTheirId_ShouldStillBeDelivered() throws Exception {
+        // Given
+        String insert = "INSERT INTO book_changes (id, book_id, change_type, title, author, isbn, book_version, changed_at) "
+                + "VALUES (?, ?, 'UPDATED', 'Late Commit', 'Author', '9780000000001', 1, CURRENT_TIMESTAMP)";
+        long first = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM book_changes", Long.class) + 1;
+        jdbcTemplate.update(insert, first + 1, -1L);
+        jdbcTemplate.execute("ALTER TABLE book_changes ALTER COLUMN id RESTART WITH " + (first + 2));
+
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (bookChangeRelay.getWatermark() <= first && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            assertTrue(bookChangeRelay.getWatermark() > first);
+
+            // When
+            jdbcTemplate.update(insert, first, -2L);
+
+            // Then
+            while (recordingSink.forBook(-2L).isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(List.of(first), recordingSink.forBook(-2L).stream().map(BookChangeDto::getChangeId).toList());
+        } finally {
+            jdbcTemplate.update("DELETE FROM book_changes WHERE book_id IN (-1, -2)");
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // cached searches are invalidated on commit
+    void searchBooks_AfterAMatchingBookIsRenamed_ShouldNotServeTheCachedPage() throws Exception {
+        // Given
+        BookRequestDto request = new BookRequestDto();
+        request.setTitle("Cache Probe Title");
+        request.setAuthor("Cache Probe Author");
+        String created = mockMvc.perform(post("/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        Long id = objectMapper.readValue(created, BookResponseDto.class).getId();
+
+        try {
+            for (String title : new String[] {"probe title", " PROBE TITLE "}) {
+                mockMvc.perform(get("/books/search").param("title", title))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.totalElements").value(1))
+                        .andExpect(jsonPath("$.content[0].id").value(id));
+            }
+
+            // When
+            request.setTitle("Renamed Title");
+            mockMvc.perform(put("/books/{id}", id)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk());
+
+            // Then
+            mockMvc.perform(get("/books/search").param("title", "probe title"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalElements").value(0));
+        } finally {
+            mockMvc.perform(delete("/books/{id}", id)).andExpect(status().isNoContent());
+        }
+    }
+
+    @Test
+    void getAllBooks_AcceptingCbor_ShouldReturnTheSlimPageInCbor() throws Exception {
+        // Given
+        BookRequestDto request = new BookRequestDto();
+        request.setTitle("Binary Format Title");
+        request.setAuthor("Binary Format Author");
+        mockMvc.perform(post("/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+
+        // When
+        byte[] body = mockMvc.perform(get("/books").param("size", "1").param("sortDir", "desc")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Then
+        JsonNode page = new CBORMapper().readTree(body);
+        assertEquals(0, page.get("page").asInt());
+        assertEquals(1, page.get("size").asInt());
+        assertEquals(bookRepository.count(), page.get("totalElements").asLong());
+        assertEquals("Binary Format Title", page.get("content").get(0).get("title").asText());
+        assertNull(page.get("pageable"));
+    }
+
+    @Test
+    void searchQueries_ShouldMatchLikeWildcardsInFiltersLiterally() {
+        // Given
+        for (String title : new String[] {"Wildcard axb Probe", "Wildcard a_b Probe", "Wildcard 100% Probe"}) {
+            Book book = new Book();
+            book.setTitle(title);
+            book.setAuthor("Wildcard Author");
+            bookRepository.save(book);
+        }
+        bookRepository.flush();
+
+        // When & Then
+        assertEquals(1, bookRepository.countByTitleAndAuthor("a_b", null));
+        assertEquals(1, bookRepository.countByTitleAndAuthor("0%", "wildcard"));
+        assertEquals(List.of("Wildcard a_b Probe"), bookRepository
+                .findResponsesByTitleAndAuthor("A_B", null, PageRequest.of(0, 10))
+                .map(BookResponseDto::getTitle).getContent());
+        assertEquals(1, bookRepository.countMatchesUpTo("a_b", null, 10));
+    }
 }
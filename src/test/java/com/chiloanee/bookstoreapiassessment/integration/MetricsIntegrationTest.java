@@ -0,0 +1,42 @@
+package com.chiloanee.bookstoreapiassessment.integration;
+
+import static org.hamcrest.Matchers.containsString;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties")
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+class MetricsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void prometheusEndpoint_ShouldExposeRequestServiceAndJdbcMetrics() throws Exception {
+        // Given
+        mockMvc.perform(get("/books")).andExpect(status().isOk());
+
+        // When & Then
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket{")))
+                .andExpect(content().string(containsString(
+                        "bookstore_service_seconds_bucket{class=\"com.chiloanee.bookstoreapiassessment.service.impl.BookServiceImpl\"")))
+                .andExpect(content().string(containsString("bookstore_jdbc_request_statements_count{method=\"GET\",uri=\"/books\",}")))
+                .andExpect(content().string(containsString("bookstore_jdbc_request_time_seconds_bucket{")))
+                .andExpect(content().string(containsString("hikaricp_connections_acquire_seconds_bucket{")))
+                .andExpect(content().string(containsString("hibernate_statements_total")))
+                .andExpect(content().string(containsString("bookstore_cache_books_requests_total")))
+                .andExpect(content().string(containsString("bookstore_search_index_size")));
+    }
+}
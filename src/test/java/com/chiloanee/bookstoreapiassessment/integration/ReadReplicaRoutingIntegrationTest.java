@@ -0,0 +1,115 @@
+package com.chiloanee.bookstoreapiassessment.integration;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Two H2 databases stand in for a primary and its replica. They are not
+ * replicated, so which one answered a read shows in the data it returns.
+ */
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing_primary;MODE=MYSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "bookstore.datasource.replicas.urls=" + ReadReplicaRoutingIntegrationTest.REPLICA_URL,
+        "bookstore.datasource.replicas.lag-query=SELECT lag_seconds FROM replica_lag",
+        "bookstore.datasource.replicas.max-lag=2s",
+        "bookstore.datasource.replicas.health-check-interval=100ms"
+})
+@AutoConfigureMockMvc
+@DirtiesContext
+class ReadReplicaRoutingIntegrationTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing_replica;MODE=MYSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeAll
+    static void createReplica() {
+        replica.execute("CREATE TABLE books (id BIGINT PRIMARY KEY, title VARCHAR(100) NOT NULL, "
+                + "author VARCHAR(50) NOT NULL, isbn VARCHAR(13) NOT NULL, version BIGINT NOT NULL)");
+        replica.execute("CREATE TABLE book_counts (slot INT PRIMARY KEY, row_count BIGINT NOT NULL, "
+                + "change_count BIGINT NOT NULL DEFAULT 0)");
+        replica.execute("CREATE TABLE replica_lag (lag_seconds DOUBLE)");
+        replica.update("INSERT INTO replica_lag VALUES (0)");
+        replica.update("INSERT INTO books VALUES (1, 'Replica Title', 'Replica Author', '9790000000001', 0)");
+        replica.update("INSERT INTO book_counts VALUES (0, 1, 0)");
+    }
+
+    @AfterAll
+    static void dropReplica() {
+        replica.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void readOnlyTransactions_ShouldUseTheReplicaUntilItLagsOrAWriteIsRecent() throws Exception {
+        awaitBooks(jsonPath("$.content[*].title", hasItem("Replica Title")));
+
+        replica.update("UPDATE replica_lag SET lag_seconds = 60");
+        awaitBooks(jsonPath("$.content[*].title", not(hasItem("Replica Title"))));
+
+        replica.update("UPDATE replica_lag SET lag_seconds = 0");
+        awaitBooks(jsonPath("$.content[*].title", hasItem("Replica Title")));
+
+        mockMvc.perform(post("/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"Primary Title\",\"author\":\"Primary Author\"}"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get("/books"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].title", hasItem("Primary Title")));
+        awaitBooks(jsonPath("$.content[*].title", hasItem("Replica Title")));
+    }
+
+    @Test
+    void exportBooks_ShouldReadFromTheReplica() throws Exception {
+        awaitBooks(jsonPath("$.content[*].title", hasItem("Replica Title")));
+
+        MvcResult export = mockMvc.perform(get("/books/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(export))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Replica Title")));
+    }
+
+    /** Polls {@code GET /books} until it matches, giving health checks and the write window time to pass. */
+    private void awaitBooks(ResultMatcher matcher) throws Exception {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (true) {
+            try {
+                mockMvc.perform(get("/books")).andExpect(status().isOk()).andExpect(matcher);
+                return;
+            } catch (AssertionError e) {
+                if (System.nanoTime() > deadline) {
+                    throw e;
+                }
+                Thread.sleep(100);
+            }
+        }
+    }
+}
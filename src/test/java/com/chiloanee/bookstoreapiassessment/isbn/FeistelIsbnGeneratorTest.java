@@ -0,0 +1,175 @@
+package com.chiloanee.bookstoreapiassessment.isbn;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.chiloanee.bookstoreapiassessment.exception.ServiceOverloadedException;
+
+class FeistelIsbnGeneratorTest {
+
+    private static final ExistingIsbnLookup NO_EXISTING_ISBNS = isbns -> Set.of();
+    private static final Duration RESERVE_TIMEOUT = Duration.ofSeconds(5);
+
+    @Test
+    void nextIsbn_ShouldProduceUniqueValidIsbn13s() {
+        FeistelIsbnGenerator generator = new FeistelIsbnGenerator(
+                inMemoryAllocator(new AtomicInteger()), NO_EXISTING_ISBNS, 1_000, RESERVE_TIMEOUT, 42L);
+
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < 200_000; i++) {
+            String isbn = generator.nextIsbn();
+            assertTrue(isbn.startsWith("978"), isbn);
+            assertTrue(Isbn13.isValid(isbn), isbn);
+            assertTrue(seen.add(isbn), "duplicate " + isbn);
+        }
+    }
+
+    @Test
+    void nextIsbn_ShouldOnlyReserveOncePerBlock() throws InterruptedException {
+        AtomicInteger reservations = new AtomicInteger();
+        FeistelIsbnGenerator generator = new FeistelIsbnGenerator(
+                inMemoryAllocator(reservations), NO_EXISTING_ISBNS, 100, RESERVE_TIMEOUT, 42L);
+
+        for (int i = 0; i < 1_000; i++) {
+            generator.nextIsbn();
+        }
+
+        // the ten blocks used, and the one prefetched half way through the last
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (reservations.get() < 11 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(11, reservations.get());
+    }
+
+    @Test
+    void nextIsbn_ShouldReserveTheNextBlockOffTheCallingThreadBeforeItIsNeeded() throws InterruptedException {
+        CountDownLatch reserved = new CountDownLatch(2);
+        Set<Thread> reservingThreads = ConcurrentHashMap.newKeySet();
+        AtomicLong next = new AtomicLong();
+        FeistelIsbnGenerator generator = new FeistelIsbnGenerator(blockSize -> {
+            reservingThreads.add(Thread.currentThread());
+            reserved.countDown();
+            return next.getAndAdd(blockSize);
+        }, NO_EXISTING_ISBNS, 100, RESERVE_TIMEOUT, 42L);
+
+        for (int i = 0; i < 51; i++) {
+            generator.nextIsbn();
+        }
+
+        assertTrue(reserved.await(5, TimeUnit.SECONDS));
+        assertFalse(reservingThreads.contains(Thread.currentThread()));
+        generator.stop();
+    }
+
+    @Test
+    void reserveFirstBlock_ShouldReserveOffTheCallingThreadBeforeAnyIsbnIsAskedFor() throws InterruptedException {
+        CountDownLatch reserved = new CountDownLatch(1);
+        Set<Thread> reservingThreads = ConcurrentHashMap.newKeySet();
+        FeistelIsbnGenerator generator = new FeistelIsbnGenerator(blockSize -> {
+            reservingThreads.add(Thread.currentThread());
+            reserved.countDown();
+            return 0L;
+        }, NO_EXISTING_ISBNS, 100, RESERVE_TIMEOUT, 42L);
+
+        generator.reserveFirstBlock();
+
+        assertTrue(reserved.await(5, TimeUnit.SECONDS));
+        assertFalse(reservingThreads.contains(Thread.currentThread()));
+        assertTrue(Isbn13.isValid(generator.nextIsbn()));
+        generator.stop();
+    }
+
+    @Test
+    void nextIsbn_WhenTheReservationStalls_ShouldFailAfterTheTimeoutAndLetALaterCallerUseIt() {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger reservations = new AtomicInteger();
+        FeistelIsbnGenerator generator = new FeistelIsbnGenerator(blockSize -> {
+            reservations.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 0L;
+        }, NO_EXISTING_ISBNS, 100, Duration.ofMillis(100), 42L);
+
+        long start = System.nanoTime();
+        assertThrows(ServiceOverloadedException.class, generator::nextIsbn);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+
+        release.countDown();
+        assertTrue(Isbn13.isValid(generator.nextIsbn()));
+        assertEquals(1, reservations.get());
+        generator.stop();
+    }
+
+    @Test
+    void nextIsbn_ShouldSkipIsbnsThatStoredBooksAlreadyCarry() {
+        List<String> unfiltered = new ArrayList<>();
+        FeistelIsbnGenerator reference = new FeistelIsbnGenerator(
+                inMemoryAllocator(new AtomicInteger()), NO_EXISTING_ISBNS, 100, RESERVE_TIMEOUT, 42L);
+        for (int i = 0; i < 100; i++) {
+            unfiltered.add(reference.nextIsbn());
+        }
+        Set<String> stored = Set.of(unfiltered.get(0), unfiltered.get(17), unfiltered.get(99));
+        FeistelIsbnGenerator generator = new FeistelIsbnGenerator(inMemoryAllocator(new AtomicInteger()), isbns -> {
+            Set<String> existing = new HashSet<>(isbns);
+            existing.retainAll(stored);
+            return existing;
+        }, 100, RESERVE_TIMEOUT, 42L);
+
+        List<String> generated = new ArrayList<>();
+        for (int i = 0; i < 97; i++) {
+            generated.add(generator.nextIsbn());
+        }
+
+        List<String> expected = new ArrayList<>(unfiltered);
+        expected.removeAll(stored);
+        assertEquals(expected, generated);
+        assertFalse(stored.contains(generator.nextIsbn()));
+    }
+
+    @Test
+    void permute_ShouldBeABijection() {
+        FeistelIsbnGenerator generator = new FeistelIsbnGenerator(
+                inMemoryAllocator(new AtomicInteger()), NO_EXISTING_ISBNS, 100, RESERVE_TIMEOUT, 7L);
+
+        Set<Long> images = new HashSet<>();
+        for (long value = 0; value < 100_000; value++) {
+            long image = generator.permute(value);
+            assertTrue(image >= 0 && image < FeistelIsbnGenerator.BODY_SPACE);
+            images.add(image);
+        }
+        assertEquals(100_000, images.size());
+    }
+
+    @Test
+    void checkDigit_ShouldMatchKnownIsbn() {
+        assertEquals(7, Isbn13.checkDigit("9780306406157"));
+        assertTrue(Isbn13.isValid("9780306406157"));
+        assertEquals("9780306406157", Isbn13.format(978, 30640615L));
+    }
+
+    private static IsbnBlockAllocator inMemoryAllocator(AtomicInteger reservations) {
+        AtomicLong next = new AtomicLong();
+        return blockSize -> {
+            reservations.incrementAndGet();
+            return next.getAndAdd(blockSize);
+        };
+    }
+}
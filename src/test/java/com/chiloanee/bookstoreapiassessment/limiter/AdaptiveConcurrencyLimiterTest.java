@@ -0,0 +1,70 @@
+package com.chiloanee.bookstoreapiassessment.limiter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    @Test
+    void tryAcquire_AtTheLimit_ShouldRejectUntilASlotIsReleased() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 1.5);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(1, limiter.getRejectedCount());
+
+        limiter.release(MILLIS, false);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void release_WithRisingLatencyUnderLoad_ShouldShrinkTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 2, 100, 1.5);
+        runSaturated(limiter, 200, 5 * MILLIS);
+        int healthyLimit = limiter.getLimit();
+
+        runSaturated(limiter, 200, 50 * MILLIS);
+
+        assertTrue(limiter.getLimit() < healthyLimit / 2,
+                () -> "limit " + limiter.getLimit() + " did not shrink from " + healthyLimit);
+    }
+
+    @Test
+    void release_WithSteadyLatencyUnderLoad_ShouldGrowTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 40, 1.5);
+
+        runSaturated(limiter, 200, 5 * MILLIS);
+
+        assertEquals(40, limiter.getLimit());
+    }
+
+    @Test
+    void release_WhenMostlyIdle_ShouldNotGrowTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 40, 1.5);
+
+        for (int i = 0; i < 200; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(5 * MILLIS, true);
+        }
+
+        assertEquals(10, limiter.getLimit());
+    }
+
+    /** Completes {@code samples} calls, each while the limiter is full. */
+    private static void runSaturated(AdaptiveConcurrencyLimiter limiter, int samples, long latencyNanos) {
+        for (int i = 0; i < samples; i++) {
+            while (limiter.tryAcquire()) {
+                // fill every slot
+            }
+            int inFlight = limiter.getInFlight();
+            for (int j = 0; j < inFlight; j++) {
+                limiter.release(latencyNanos, j == 0);
+            }
+        }
+    }
+}
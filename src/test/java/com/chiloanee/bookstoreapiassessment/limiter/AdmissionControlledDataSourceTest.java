@@ -0,0 +1,47 @@
+package com.chiloanee.bookstoreapiassessment.limiter;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.CompletableFuture;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.chiloanee.bookstoreapiassessment.exception.ServiceOverloadedException;
+
+class AdmissionControlledDataSourceTest {
+
+    @Test
+    void getConnection_ShouldTakeOneSlotPerServiceCallAndRejectBeyondTheLimit() throws Exception {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 1.5);
+        AdmissionControlledDataSource dataSource = new AdmissionControlledDataSource(target, limiter, 2);
+
+        dataSource.getConnection();
+        assertEquals(0, limiter.getInFlight());
+
+        try (LimiterAdmission first = LimiterAdmission.open()) {
+            dataSource.getConnection();
+            dataSource.getConnection();
+            assertEquals(1, limiter.getInFlight());
+
+            CompletableFuture.runAsync(() -> {
+                try (LimiterAdmission second = LimiterAdmission.open()) {
+                    SQLTransientConnectionException rejected =
+                            assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+                    ServiceOverloadedException overloaded =
+                            assertInstanceOf(ServiceOverloadedException.class, rejected.getCause());
+                    assertEquals(2, overloaded.getRetryAfterSeconds());
+                }
+            }).join();
+            assertEquals(1, limiter.getRejectedCount());
+        }
+    }
+}
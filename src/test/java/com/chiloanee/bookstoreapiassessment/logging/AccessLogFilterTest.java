@@ -0,0 +1,88 @@
+package com.chiloanee.bookstoreapiassessment.logging;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+
+class AccessLogFilterTest {
+
+    private final Logger accessLog = (Logger) LoggerFactory.getLogger(AccessLogFilter.LOGGER_NAME);
+    private final ListAppender<ILoggingEvent> events = new ListAppender<>();
+
+    // Samples nothing and treats nothing as slow, so only failures are logged
+    private final AccessLogFilter filter = new AccessLogFilter(0.0, Duration.ofHours(1));
+
+    @BeforeEach
+    void attach() {
+        events.start();
+        accessLog.addAppender(events);
+    }
+
+    @AfterEach
+    void detach() {
+        accessLog.detachAppender(events);
+    }
+
+    @Test
+    void asyncRequest_WhenItTimesOutAndThenCompletes_ShouldBeLoggedOnce() throws Exception {
+        MockHttpServletRequest request = asyncRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> req.startAsync());
+
+        MockAsyncContext context = (MockAsyncContext) request.getAsyncContext();
+        for (AsyncListener listener : context.getListeners()) {
+            listener.onTimeout(new AsyncEvent(context));
+        }
+        context.complete();
+
+        List<ILoggingEvent> logged = events.list;
+        assertEquals(1, logged.size());
+        assertEquals("timeout", outcome(logged.get(0)));
+    }
+
+    @Test
+    void asyncRequest_WhenItFailsAndThenCompletes_ShouldBeLoggedOnce() throws Exception {
+        MockHttpServletRequest request = asyncRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> req.startAsync());
+
+        MockAsyncContext context = (MockAsyncContext) request.getAsyncContext();
+        for (AsyncListener listener : context.getListeners()) {
+            listener.onError(new AsyncEvent(context, new IllegalStateException("client went away")));
+        }
+        response.setStatus(500);
+        context.complete();
+
+        List<ILoggingEvent> logged = events.list;
+        assertEquals(1, logged.size());
+        assertEquals("error", outcome(logged.get(0)));
+    }
+
+    private static MockHttpServletRequest asyncRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/books/export");
+        request.setAsyncSupported(true);
+        return request;
+    }
+
+    private static Object outcome(ILoggingEvent event) {
+        return event.getKeyValuePairs().stream()
+                .filter(pair -> pair.key.equals("asyncOutcome"))
+                .map(pair -> pair.value)
+                .findFirst()
+                .orElse(null);
+    }
+}
@@ -0,0 +1,31 @@
+package com.chiloanee.bookstoreapiassessment.pagination;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import com.chiloanee.bookstoreapiassessment.exception.InvalidPaginationException;
+
+class SortSpecParserTest {
+
+    @Test
+    void parse_SingleField_ShouldAppendIdInTheSameDirection() {
+        assertEquals(Sort.by(Sort.Order.desc("title"), Sort.Order.desc("id")), SortSpecParser.parse("TITLE", "desc"));
+    }
+
+    @Test
+    void parse_WithId_ShouldDropTheFieldsAfterIt() {
+        assertEquals(Sort.by(Sort.Order.asc("author"), Sort.Order.desc("id")), SortSpecParser.parse("author, id:desc, title", "asc"));
+        assertEquals(Sort.by(Sort.Order.asc("id")), SortSpecParser.parse("id", "asc"));
+    }
+
+    @Test
+    void parse_InvalidSpec_ShouldThrow() {
+        assertThrows(InvalidPaginationException.class, () -> SortSpecParser.parse("title,title", "asc"));
+        assertThrows(InvalidPaginationException.class, () -> SortSpecParser.parse("title:up", "asc"));
+        assertThrows(InvalidPaginationException.class, () -> SortSpecParser.parse("title", "sideways"));
+        assertThrows(InvalidPaginationException.class, () -> SortSpecParser.parse("title,author,isbn,id", "asc"));
+        assertThrows(InvalidPaginationException.class, () -> SortSpecParser.parse("", "asc"));
+    }
+}
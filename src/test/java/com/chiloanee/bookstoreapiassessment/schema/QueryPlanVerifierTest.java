@@ -0,0 +1,44 @@
+package com.chiloanee.bookstoreapiassessment.schema;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import org.flywaydb.core.Flyway;
+
+class QueryPlanVerifierTest {
+
+    @Test
+    void verify_AfterTheMigrations_ShouldFindNoFullScans() {
+        DriverManagerDataSource dataSource = migratedDatabase("plans_migrated");
+
+        assertTrue(new QueryPlanVerifier(dataSource, true, true).verify().isEmpty());
+    }
+
+    @Test
+    void verify_WithoutADescendingIndex_ShouldFlagTheDescendingPages() {
+        DriverManagerDataSource dataSource = migratedDatabase("plans_missing_index");
+        new JdbcTemplate(dataSource).execute("DROP INDEX idx_books_title_id_desc");
+        QueryPlanVerifier verifier = new QueryPlanVerifier(dataSource, true, true);
+
+        List<String> fullScans = verifier.verify();
+
+        assertEquals(List.of("keyset page by title desc", "keyset page by title desc after a cursor"), fullScans);
+        assertThrows(IllegalStateException.class, verifier::verifyOnStartup);
+    }
+
+    private static DriverManagerDataSource migratedDatabase(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/h2")
+                .load()
+                .migrate();
+        return dataSource;
+    }
+}
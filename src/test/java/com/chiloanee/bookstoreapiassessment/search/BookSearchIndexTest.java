@@ -0,0 +1,84 @@
+package com.chiloanee.bookstoreapiassessment.search;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import com.chiloanee.bookstoreapiassessment.event.BookChangedEvent;
+import com.chiloanee.bookstoreapiassessment.repository.BookRepository;
+
+@ExtendWith(MockitoExtension.class)
+class BookSearchIndexTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSearchIndex(bookRepository, true, 2);
+        when(bookRepository.findSearchDocuments(eq(0L), any())).thenReturn(List.of(
+                new BookSearchDocument(1L, "Clean Code", "Robert Martin"),
+                new BookSearchDocument(2L, "Refactoring", "Martin Fowler")));
+        when(bookRepository.findSearchDocuments(eq(2L), any())).thenReturn(List.of(
+                new BookSearchDocument(3L, "Effective Java", "Joshua Bloch")));
+        index.rebuild();
+    }
+
+    @Test
+    void rebuild_ShouldLoadAllBatchesAndBecomeReady() {
+        assertTrue(index.isReady());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void search_ShouldMatchSubstringsIgnoringCase() {
+        assertArrayEquals(new long[] {1L, 2L}, index.search(null, "MARTIN"));
+        assertArrayEquals(new long[] {3L}, index.search("ive ja", null));
+        assertArrayEquals(new long[] {2L}, index.search("factor", "fowler"));
+        assertArrayEquals(new long[0], index.search("code", "fowler"));
+    }
+
+    @Test
+    void search_WithShortOrMissingTerms_ShouldBehaveLikeLikeQuery() {
+        assertArrayEquals(new long[] {1L, 2L, 3L}, index.search(null, null));
+        assertArrayEquals(new long[] {1L, 2L, 3L}, index.search("", null));
+        assertArrayEquals(new long[] {1L, 2L}, index.search(null, "ma"));
+        assertArrayEquals(new long[] {2L}, index.search("ac", "ma"));
+    }
+
+    @Test
+    void onBookChanged_ShouldApplyCreatesUpdatesAndDeletes() {
+        index.onBookChanged(new BookChangedEvent(BookChangedEvent.Type.CREATED, 4L, "Java Concurrency", "Brian Goetz", null, 0L));
+        assertArrayEquals(new long[] {3L, 4L}, index.search("java", null));
+
+        index.onBookChanged(new BookChangedEvent(BookChangedEvent.Type.UPDATED, 3L, "Effective Kotlin", "Joshua Bloch", null, 1L));
+        assertArrayEquals(new long[] {4L}, index.search("java", null));
+
+        index.onBookChanged(new BookChangedEvent(BookChangedEvent.Type.DELETED, 4L, "Java Concurrency", "Brian Goetz", null, 0L));
+        assertArrayEquals(new long[0], index.search("java", null));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void supports_ShouldOnlyAcceptIdOrder() {
+        assertTrue(index.supports(PageRequest.of(0, 10)));
+        assertTrue(index.supports(PageRequest.of(0, 10, Sort.by("id"))));
+        assertFalse(index.supports(PageRequest.of(0, 10, Sort.by("title"))));
+        assertFalse(index.supports(PageRequest.of(0, 10, Sort.by("id").descending())));
+    }
+}
@@ -3,17 +3,25 @@ package com.chiloanee.bookstoreapiassessment.service.impl;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.IntFunction;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -22,13 +30,25 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.util.unit.DataSize;
 
+import com.chiloanee.bookstoreapiassessment.cache.BookCache;
+import com.chiloanee.bookstoreapiassessment.cache.SearchResultCache;
+import com.chiloanee.bookstoreapiassessment.dto.BatchGetItemDto;
+import com.chiloanee.bookstoreapiassessment.dto.BatchGetResultDto;
 import com.chiloanee.bookstoreapiassessment.dto.BookRequestDto;
 import com.chiloanee.bookstoreapiassessment.dto.BookResponseDto;
+import com.chiloanee.bookstoreapiassessment.dto.BulkInsertResultDto;
+import com.chiloanee.bookstoreapiassessment.dto.SlicePageDto;
 import com.chiloanee.bookstoreapiassessment.entity.Book;
+import com.chiloanee.bookstoreapiassessment.event.BookChangedEvent;
 import com.chiloanee.bookstoreapiassessment.exception.BookNotFoundException;
+import com.chiloanee.bookstoreapiassessment.exception.PreconditionFailedException;
 import com.chiloanee.bookstoreapiassessment.mapper.BookMapper;
+import com.chiloanee.bookstoreapiassessment.repository.BookCounter;
 import com.chiloanee.bookstoreapiassessment.repository.BookRepository;
+import com.chiloanee.bookstoreapiassessment.search.BookSearchIndex;
 
 @ExtendWith(MockitoExtension.class)
 class BookServiceImplTest {
@@ -39,6 +59,30 @@ class BookServiceImplTest {
     @Mock
     private BookMapper bookMapper;
 
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+
+    @Spy
+    private BookCache bookCache = new BookCache(true, 100);
+
+    @Spy
+    private BookReadCoalescer bookReadCoalescer = new BookReadCoalescer(true);
+
+    @Spy
+    private SearchResultCache searchResultCache = new SearchResultCache(true, DataSize.ofMegabytes(1));
+
+    @Mock
+    private BookBulkInserter bookBulkInserter;
+
+    @Mock
+    private BookExporter bookExporter;
+
+    @Mock
+    private GroupCommitBookWriter groupCommitBookWriter;
+
+    @Mock
+    private BookCounter bookCounter;
+
     @InjectMocks
     private BookServiceImpl bookService;
 
@@ -99,6 +143,48 @@ class BookServiceImplTest {
         verify(bookMapper).toResponseDto(book);
     }
 
+    @Test
+    void getBookById_WhenCached_ShouldNotHitRepositoryAgain() {
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(bookMapper.toResponseDto(book)).thenReturn(bookResponseDto);
+
+        bookService.getBookById(1L);
+        BookResponseDto result = bookService.getBookById(1L);
+
+        assertEquals(bookResponseDto.getId(), result.getId());
+        verify(bookRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void getBookById_AfterInvalidation_ShouldReloadFromRepository() {
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(bookMapper.toResponseDto(book)).thenReturn(bookResponseDto);
+
+        bookService.getBookById(1L);
+        bookCache.invalidate(1L);
+        bookService.getBookById(1L);
+
+        verify(bookRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void getBooksByIds_ShouldKeepRequestOrderAndOnlyQueryCacheMisses() {
+        BookResponseDto other = new BookResponseDto(2L, "Other Book", "Other Author", "9780306406164", 0L);
+        bookCache.get(1L, id -> bookResponseDto);
+        when(bookRepository.findResponsesByIdIn(List.of(3L, 2L))).thenReturn(List.of(other));
+
+        BatchGetResultDto result = bookService.getBooksByIds(List.of(3L, 1L, 2L, 1L));
+
+        assertEquals(List.of(3L, 1L, 2L, 1L), result.getItems().stream().map(BatchGetItemDto::getId).toList());
+        assertFalse(result.getItems().get(0).isFound());
+        assertNull(result.getItems().get(0).getBook());
+        assertEquals("Test Book", result.getItems().get(1).getBook().getTitle());
+        assertEquals("Other Book", result.getItems().get(2).getBook().getTitle());
+        assertEquals(3, result.getFound());
+        assertEquals(1, result.getNotFound());
+        verify(bookRepository, times(1)).findResponsesByIdIn(any());
+    }
+
     @Test
     void getBookById_WhenBookNotExists_ShouldThrowBookNotFoundException() {
         when(bookRepository.findById(1L)).thenReturn(Optional.empty());
@@ -111,7 +197,7 @@ class BookServiceImplTest {
     @Test
     void updateBook_WhenBookExists_ShouldReturnUpdatedBookResponseDto() {
         when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
-        when(bookRepository.save(book)).thenReturn(book);
+        when(bookRepository.saveAndFlush(book)).thenReturn(book);
         when(bookMapper.toResponseDto(book)).thenReturn(bookResponseDto);
 
         BookResponseDto result = bookService.updateBook(1L, bookRequestDto);
@@ -121,7 +207,7 @@ class BookServiceImplTest {
 
         verify(bookRepository).findById(1L);
         verify(bookMapper).updateEntity(book, bookRequestDto);
-        verify(bookRepository).save(book);
+        verify(bookRepository).saveAndFlush(book);
         verify(bookMapper).toResponseDto(book);
     }
 
@@ -134,6 +220,27 @@ class BookServiceImplTest {
         verify(bookRepository, never()).save(any());
     }
 
+    @Test
+    void updateBook_WhenVersionDoesNotMatch_ShouldThrowPreconditionFailedException() {
+        book.setVersion(4L);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+
+        assertThrows(PreconditionFailedException.class, () -> bookService.updateBook(1L, bookRequestDto, Set.of(3L)));
+        verify(bookMapper, never()).updateEntity(any(), any());
+        verify(bookRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void getBookVersion_WhenCached_ShouldNotQueryRepository() {
+        bookResponseDto.setVersion(7L);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(bookMapper.toResponseDto(book)).thenReturn(bookResponseDto);
+        bookService.getBookById(1L);
+
+        assertEquals(7L, bookService.getBookVersion(1L));
+        verify(bookRepository, never()).findVersionById(anyLong());
+    }
+
     @Test
     void deleteBook_WhenBookExists_ShouldDeleteBook() {
         when(bookRepository.existsById(1L)).thenReturn(true);
@@ -156,44 +263,110 @@ class BookServiceImplTest {
     @Test
     void getAllBooks_ShouldReturnPageOfBooks() {
         Pageable pageable = PageRequest.of(0, 10);
-        Page<Book> bookPage = new PageImpl<>(Arrays.asList(book));
-        when(bookRepository.findAll(pageable)).thenReturn(bookPage);
-        when(bookMapper.toResponseDto(book)).thenReturn(bookResponseDto);
+        when(bookRepository.findAllResponses(pageable)).thenReturn(List.of(bookResponseDto));
+        when(bookCounter.total()).thenReturn(41L);
 
         Page<BookResponseDto> result = bookService.getAllBooks(pageable);
 
         assertNotNull(result);
         assertEquals(1, result.getContent().size());
+        assertEquals(41, result.getTotalElements());
         assertEquals(bookResponseDto.getId(), result.getContent().get(0).getId());
 
-        verify(bookRepository).findAll(pageable);
+        verify(bookRepository).findAllResponses(pageable);
+        verify(bookMapper, never()).toResponseDto(any());
     }
 
     @Test
     void searchBooks_ShouldReturnPageOfBooks() {
         Pageable pageable = PageRequest.of(0, 10);
-        Page<Book> bookPage = new PageImpl<>(Arrays.asList(book));
-        when(bookRepository.findByTitleContainingIgnoreCaseOrAuthorContainingIgnoreCase("Test", "Author", pageable))
-                .thenReturn(bookPage);
-        when(bookMapper.toResponseDto(book)).thenReturn(bookResponseDto);
+        Page<BookResponseDto> bookPage = new PageImpl<>(Arrays.asList(bookResponseDto));
+        when(bookRepository.findResponsesByTitleAndAuthor("Test", "Author", pageable)).thenReturn(bookPage);
 
         Page<BookResponseDto> result = bookService.searchBooks("Test", "Author", pageable);
 
         assertNotNull(result);
         assertEquals(1, result.getContent().size());
 
-        verify(bookRepository).findByTitleContainingIgnoreCaseOrAuthorContainingIgnoreCase("Test", "Author", pageable);
+        verify(bookRepository).findResponsesByTitleAndAuthor("Test", "Author", pageable);
+    }
+    
+    @Test
+    void searchBooks_WhenIndexReady_ShouldFetchMatchedIdsByPrimaryKey() {
+        Pageable pageable = PageRequest.of(0, 10);
+        when(bookSearchIndex.isReady()).thenReturn(true);
+        when(bookSearchIndex.supports(pageable)).thenReturn(true);
+        when(bookSearchIndex.search("Test", "Author")).thenReturn(new long[] {1L});
+        when(bookRepository.findResponsesByIdIn(List.of(1L))).thenReturn(List.of(bookResponseDto));
+
+        Page<BookResponseDto> result = bookService.searchBooks("Test", "Author", pageable);
+
+        assertEquals(1, result.getTotalElements());
+        assertEquals(bookResponseDto.getId(), result.getContent().get(0).getId());
+        verify(bookRepository, never()).findResponsesByTitleAndAuthor(any(), any(), any());
+    }
+    
+    @Test
+    void searchBooks_WithRepeatedQuery_ShouldReuseCachedIdsUntilAMatchingBookChanges() {
+        Pageable pageable = PageRequest.of(0, 10);
+        BookResponseDto java = new BookResponseDto(1L, "Effective Java", "Joshua Bloch", "9780134685991", 0L);
+        when(bookRepository.findResponsesByTitleAndAuthor("Java", null, pageable))
+                .thenReturn(new PageImpl<>(List.of(java), pageable, 1));
+        when(bookRepository.findResponsesByIdIn(List.of(1L))).thenReturn(List.of(java));
+
+        bookService.searchBooks(" Java ", null, pageable);
+        Page<BookResponseDto> cached = bookService.searchBooks("java", "", pageable);
+        searchResultCache.onBookChanging(new BookChangedEvent(
+                BookChangedEvent.Type.CREATED, 2L, "Kotlin in Action", "Dmitry Jemerov", "9781617293290", 0L));
+        bookService.searchBooks("JAVA", null, pageable);
+        searchResultCache.onBookChanging(new BookChangedEvent(
+                BookChangedEvent.Type.CREATED, 3L, "Java Concurrency in Practice", "Brian Goetz", "9780321349606", 0L));
+        bookService.searchBooks("Java", null, pageable);
+
+        assertEquals(List.of(java), cached.getContent());
+        assertEquals(1, cached.getTotalElements());
+        verify(bookRepository, times(2)).findResponsesByTitleAndAuthor("Java", null, pageable);
+    }
+    
+    @Test
+    void searchBooksApproximate_WhenMatchesExceedTheCap_ShouldReportACappedTotal() {
+        Pageable pageable = PageRequest.of(0, 10);
+        when(bookRepository.findResponseSliceByTitleAndAuthor("Test", null, pageable))
+                .thenReturn(new SliceImpl<>(List.of(bookResponseDto), pageable, true));
+        when(bookRepository.countMatchesUpTo("Test", null, 1001)).thenReturn(1001L);
+
+        SlicePageDto<BookResponseDto> result = bookService.searchBooksApproximate("Test", null, pageable);
+
+        assertEquals(1000, result.getTotalElements());
+        assertTrue(result.isTotalCapped());
+        assertTrue(result.isHasNext());
+        verify(bookRepository, never()).findResponsesByTitleAndAuthor(any(), any(), any());
     }
     
     @Test
     void generateDummyBooks_ShouldCreateSpecifiedNumberOfBooks() {
-        List<Book> dummyBooks = Arrays.asList(book, book, book);
-        when(bookRepository.saveAll(any())).thenReturn(dummyBooks);
+        when(bookBulkInserter.insert(eq(3), any())).thenReturn(new BulkInsertResultDto(3, 1, 10, 300.0));
 
         String result = bookService.generateDummyBooks(3);
 
         assertNotNull(result);
-        assertEquals("Successfully generated 3 dummy books", result);
-        verify(bookRepository).saveAll(any());
+        assertEquals("Successfully generated 3 dummy books in 10 ms (300 rows/s)", result);
+        verify(bookBulkInserter).insert(eq(3), any());
+    }
+
+    @Test
+    void bulkCreateBooks_ShouldMapEveryRequestThroughTheBulkInserter() {
+        when(bookBulkInserter.insert(eq(2), any())).thenAnswer(invocation -> {
+            IntFunction<Book> factory = invocation.getArgument(1);
+            factory.apply(0);
+            factory.apply(1);
+            return new BulkInsertResultDto(2, 1, 5, 400.0);
+        });
+        when(bookMapper.toEntity(bookRequestDto)).thenReturn(book);
+
+        BulkInsertResultDto result = bookService.bulkCreateBooks(List.of(bookRequestDto, bookRequestDto));
+
+        assertEquals(2, result.getRowsInserted());
+        verify(bookMapper, times(2)).toEntity(bookRequestDto);
     }
 }
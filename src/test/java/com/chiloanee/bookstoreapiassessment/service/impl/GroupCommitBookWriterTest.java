@@ -0,0 +1,106 @@
+package com.chiloanee.bookstoreapiassessment.service.impl;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.Mock;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.chiloanee.bookstoreapiassessment.dto.BookRequestDto;
+import com.chiloanee.bookstoreapiassessment.dto.BookResponseDto;
+import com.chiloanee.bookstoreapiassessment.entity.Book;
+import com.chiloanee.bookstoreapiassessment.mapper.BookMapper;
+
+import jakarta.persistence.EntityManager;
+
+@ExtendWith(MockitoExtension.class)
+class GroupCommitBookWriterTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private GroupCommitBookWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        // a long max-delay so that the three books below form one batch
+        writer = new GroupCommitBookWriter(transactionManager, new BookMapper(), 16, 3, Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(writer, "entityManager", entityManager);
+        writer.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writer.stop();
+    }
+
+    @Test
+    void submit_WhenABookViolatesAConstraint_ShouldOnlyFailThatBook() throws Exception {
+        // Given
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        doAnswer(invocation -> {
+            if ("Bad".equals(invocation.<Book>getArgument(0).getTitle())) {
+                throw new DataIntegrityViolationException("duplicate");
+            }
+            return null;
+        }).when(entityManager).persist(any());
+
+        // When
+        List<CompletableFuture<BookResponseDto>> results = List.of(
+                writer.submit(request("Good")), writer.submit(request("Bad")), writer.submit(request("Also Good")));
+
+        // Then
+        assertEquals("Good", results.get(0).get(5, TimeUnit.SECONDS).getTitle());
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> results.get(1).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(DataIntegrityViolationException.class, failure.getCause());
+        assertEquals("Also Good", results.get(2).get(5, TimeUnit.SECONDS).getTitle());
+        verify(transactionManager, times(4)).getTransaction(any());
+    }
+
+    @Test
+    void submit_WhenTheDatabaseIsUnavailable_ShouldFailTheWholeBatchAtOnce() {
+        // Given
+        when(transactionManager.getTransaction(any())).thenThrow(new CannotCreateTransactionException("no connection"));
+
+        // When
+        List<CompletableFuture<BookResponseDto>> results = List.of(
+                writer.submit(request("First")), writer.submit(request("Second")), writer.submit(request("Third")));
+
+        // Then
+        for (CompletableFuture<BookResponseDto> result : results) {
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(CannotCreateTransactionException.class, failure.getCause());
+        }
+        verify(transactionManager, times(1)).getTransaction(any());
+    }
+
+    private static BookRequestDto request(String title) {
+        BookRequestDto request = new BookRequestDto();
+        request.setTitle(title);
+        request.setAuthor("Author");
+        return request;
+    }
+}